@@ -0,0 +1,66 @@
+package com.library.api.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers parsed rows and writes them with one JDBC batch per chunk, so a
+ * large seed file costs one round trip per chunk instead of one per row.
+ * The ids come from the identity column; no generated keys are read back.
+ */
+class BatchInserter<T> implements AutoCloseable {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+    private final ParameterizedPreparedStatementSetter<T> setter;
+    private final int batchSize;
+    private final List<T> chunk;
+    private final long startNanos = System.nanoTime();
+    private long rows;
+
+    BatchInserter(JdbcTemplate jdbcTemplate, String sql, int batchSize,
+                  ParameterizedPreparedStatementSetter<T> setter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sql = sql;
+        this.setter = setter;
+        this.batchSize = Math.max(1, batchSize);
+        this.chunk = new ArrayList<>(this.batchSize);
+    }
+
+    void add(T row) {
+        chunk.add(row);
+        if (chunk.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, chunk, batchSize, setter);
+        rows += chunk.size();
+        chunk.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Summary line with the row count, elapsed time and rows/sec
+     */
+    String report(String what, String source) {
+        long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        return String.format("Imported %d %s from %s in %d ms (%.0f rows/s)",
+                rows, what, source, millis, rows * 1000.0 / millis);
+    }
+}
@@ -4,6 +4,7 @@ import com.library.api.model.Book;
 import com.library.api.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
@@ -13,13 +14,21 @@ import java.util.*;
 @Component
 public class BookDataLoader implements CommandLineRunner {
 
-    private final BookRepository bookRepository;
+    private static final String INSERT_SQL =
+            "INSERT INTO book (title, author, isbn, copies, publication_year) VALUES (?, ?, ?, ?, ?)";
 
-    @Value("${library.books.filepath:../books.txt}")
-    private String booksFilePath;
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String booksFilePath;
+    private final int batchSize;
 
-    public BookDataLoader(BookRepository bookRepository) {
+    public BookDataLoader(BookRepository bookRepository, JdbcTemplate jdbcTemplate,
+                          @Value("${library.books.filepath:../books.txt}") String booksFilePath,
+                          @Value("${library.import.batch-size:1000}") int batchSize) {
         this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.booksFilePath = booksFilePath;
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -28,25 +37,64 @@ public class BookDataLoader implements CommandLineRunner {
         if (bookRepository.count() == 0) {
             Path path = Paths.get(booksFilePath);
             if (Files.exists(path)) {
-                try (BufferedReader reader = Files.newBufferedReader(path)) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        String[] parts = line.split("\\|");
-                        if (parts.length >= 5) {
-                            Book book = new Book();
-                            book.setTitle(parts[0].trim());
-                            book.setAuthor(parts[1].trim());
-                            book.setIsbn(parts[2].trim());
-                            book.setCopies(Integer.parseInt(parts[3].trim()));
-                            book.setYear(Integer.parseInt(parts[4].trim()));
-                            bookRepository.save(book);
-                        }
-                    }
-                }
-                System.out.println("Books imported from " + booksFilePath);
+                System.out.println(importBooks(path));
             } else {
                 System.out.println("books.txt not found at: " + path.toAbsolutePath());
             }
         }
     }
+
+    /**
+     * Streams the file and inserts its books in JDBC batches. Duplicate ISBNs
+     * are skipped before they reach the database, since one unique-key
+     * violation would fail the whole batch.
+     *
+     * @return Summary line with the import rate
+     */
+    String importBooks(Path path) throws IOException {
+        Set<String> seenIsbns = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(path);
+             BatchInserter<Book> inserter = new BatchInserter<>(jdbcTemplate, INSERT_SQL, batchSize,
+                     (ps, book) -> {
+                         ps.setString(1, book.getTitle());
+                         ps.setString(2, book.getAuthor());
+                         ps.setString(3, book.getIsbn());
+                         ps.setInt(4, book.getCopies());
+                         ps.setInt(5, book.getYear());
+                     })) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Book book = parse(line);
+                if (book == null) {
+                    continue;
+                }
+                if (!seenIsbns.add(book.getIsbn())) {
+                    System.out.println("Skipping duplicate ISBN: " + book.getIsbn());
+                    continue;
+                }
+                inserter.add(book);
+            }
+            inserter.flush();
+            return inserter.report("books", booksFilePath);
+        }
+    }
+
+    private static Book parse(String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length < 5) {
+            return null;
+        }
+        Book book = new Book();
+        book.setTitle(parts[0].trim());
+        book.setAuthor(parts[1].trim());
+        book.setIsbn(parts[2].trim());
+        try {
+            book.setCopies(Integer.parseInt(parts[3].trim()));
+            book.setYear(Integer.parseInt(parts[4].trim()));
+        } catch (NumberFormatException e) {
+            System.out.println("Skipping malformed line: " + line);
+            return null;
+        }
+        return book;
+    }
 }
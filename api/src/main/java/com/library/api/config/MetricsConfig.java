@@ -0,0 +1,47 @@
+package com.library.api.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies the per-endpoint and per-method percentile settings from
+ * MetricsProperties. Everything else is auto-configured by Actuator:
+ * http.server.requests for the controller, spring.data.repository.invocations
+ * for repository queries, hikaricp.* for the connection pool and jvm.* for
+ * memory, GC and threads, all served on /actuator/prometheus.
+ */
+@Configuration
+@EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsConfig {
+
+    static final String HTTP_REQUESTS = "http.server.requests";
+    // Timer of the @Timed BookServiceImpl
+    public static final String SERVICE_TIMER = "library.book.service";
+
+    @Bean
+    public MeterFilter latencyDistributions(MetricsProperties properties) {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                MetricsProperties.Distribution distribution = null;
+                if (HTTP_REQUESTS.equals(id.getName())) {
+                    distribution = properties.getEndpoints().get(id.getTag("uri"));
+                } else if (SERVICE_TIMER.equals(id.getName())) {
+                    distribution = properties.getServices().get(id.getTag("method"));
+                }
+                if (distribution == null) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(distribution.getPercentiles())
+                        .percentilesHistogram(distribution.isHistogram())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency distribution settings for single endpoints and service methods,
+ * on top of the plain count/sum/max every timer publishes, e.g.
+ * library.metrics.endpoints[/api/books/search].percentiles=0.5,0.95,0.99
+ */
+@Data
+@ConfigurationProperties(prefix = "library.metrics")
+public class MetricsProperties {
+
+    // Keyed by request URI pattern, as in the uri tag of http.server.requests
+    private Map<String, Distribution> endpoints = new LinkedHashMap<>();
+
+    // Keyed by BookService method name, as in the method tag of the service timer
+    private Map<String, Distribution> services = new LinkedHashMap<>();
+
+    @Data
+    public static class Distribution {
+        // Client-side percentiles published as their own series, e.g. 0.99
+        private double[] percentiles = {};
+        // Publish histogram buckets so the server can compute any percentile
+        private boolean histogram;
+    }
+}
@@ -4,6 +4,7 @@ import com.library.api.model.Patron;
 import com.library.api.repository.PatronRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
@@ -12,13 +13,20 @@ import java.nio.file.*;
 @Component
 public class PatronDataLoader implements CommandLineRunner {
 
-    private final PatronRepository patronRepository;
+    private static final String INSERT_SQL = "INSERT INTO patron (patron_id, name, contact) VALUES (?, ?, ?)";
 
-    @Value("${library.patrons.filepath:../patrons.txt}")
-    private String patronsFilePath;
+    private final PatronRepository patronRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String patronsFilePath;
+    private final int batchSize;
 
-    public PatronDataLoader(PatronRepository patronRepository) {
+    public PatronDataLoader(PatronRepository patronRepository, JdbcTemplate jdbcTemplate,
+                            @Value("${library.patrons.filepath:../patrons.txt}") String patronsFilePath,
+                            @Value("${library.import.batch-size:1000}") int batchSize) {
         this.patronRepository = patronRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.patronsFilePath = patronsFilePath;
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -26,23 +34,39 @@ public class PatronDataLoader implements CommandLineRunner {
         if (patronRepository.count() == 0) {
             Path path = Paths.get(patronsFilePath);
             if (Files.exists(path)) {
-                try (BufferedReader reader = Files.newBufferedReader(path)) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        String[] parts = line.split("\\|");
-                        if (parts.length >= 3) {
-                            Patron patron = new Patron();
-                            patron.setPatronId(parts[0].trim());
-                            patron.setName(parts[1].trim());
-                            patron.setContact(parts[2].trim());
-                            patronRepository.save(patron);
-                        }
-                    }
-                }
-                System.out.println("Patrons imported from " + patronsFilePath);
+                System.out.println(importPatrons(path));
             } else {
                 System.out.println("patrons.txt not found at: " + path.toAbsolutePath());
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams the file and inserts its patrons in JDBC batches
+     *
+     * @return Summary line with the import rate
+     */
+    String importPatrons(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path);
+             BatchInserter<Patron> inserter = new BatchInserter<>(jdbcTemplate, INSERT_SQL, batchSize,
+                     (ps, patron) -> {
+                         ps.setString(1, patron.getPatronId());
+                         ps.setString(2, patron.getName());
+                         ps.setString(3, patron.getContact());
+                     })) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                if (parts.length >= 3) {
+                    Patron patron = new Patron();
+                    patron.setPatronId(parts[0].trim());
+                    patron.setName(parts[1].trim());
+                    patron.setContact(parts[2].trim());
+                    inserter.add(patron);
+                }
+            }
+            inserter.flush();
+            return inserter.report("patrons", patronsFilePath);
+        }
+    }
+}
@@ -1,30 +1,83 @@
 package com.library.api.controller;
 
 import com.library.api.model.Book;
+import com.library.api.service.BookFilter;
+import com.library.api.service.BookPage;
 import com.library.api.service.BookService;
+import com.library.api.service.BookSort;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    // Listings return one page as a JSON array; the cursor for the next page,
+    // if any, is sent in this header and passed back as ?after=
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String DEFAULT_PAGE_SIZE = "50";
+
+    static final String NDJSON = "application/x-ndjson";
+    // Rows written between flushes of the export stream
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     private final BookService bookService;
+    private final ObjectWriter bookWriter;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookWriter = objectMapper.writerFor(Book.class);
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, one book per line,
+     * straight from a database cursor to the response.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = out -> {
+            long[] written = { 0 };
+            try {
+                bookService.exportBooks(book -> {
+                    try {
+                        out.write(bookWriter.writeValueAsBytes(book));
+                        out.write('\n');
+                        // Flush the first row right away, then in batches
+                        if (written[0]++ % EXPORT_FLUSH_INTERVAL == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<Book>> getAllBooks(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String sort) {
+        return page(BookFilter::all, after, limit, sort);
     }
 
     @GetMapping("/{id}")
@@ -65,39 +118,34 @@ public class BookController {
     }
 
     @GetMapping("/search/title")
-    public ResponseEntity<List<Book>> searchBooksByTitle(@RequestParam String title) {
-        try {
-            List<Book> books = bookService.findBooksByTitle(title);
-            return ResponseEntity.ok(books);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<List<Book>> searchBooksByTitle(@RequestParam String title,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String sort) {
+        return page(() -> BookFilter.titleContains(title), after, limit, sort);
     }
 
     @GetMapping("/search/author")
-    public ResponseEntity<List<Book>> searchBooksByAuthor(@RequestParam String author) {
-        try {
-            List<Book> books = bookService.findBooksByAuthor(author);
-            return ResponseEntity.ok(books);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<List<Book>> searchBooksByAuthor(@RequestParam String author,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String sort) {
+        return page(() -> BookFilter.authorContains(author), after, limit, sort);
     }
 
     @GetMapping("/search/year")
-    public ResponseEntity<List<Book>> searchBooksByYear(@RequestParam int year) {
-        try {
-            List<Book> books = bookService.findBooksByYear(year);
-            return ResponseEntity.ok(books);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<List<Book>> searchBooksByYear(@RequestParam int year,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String sort) {
+        return page(() -> BookFilter.year(year), after, limit, sort);
     }
 
     @GetMapping("/available")
-    public ResponseEntity<List<Book>> getAvailableBooks() {
-        List<Book> books = bookService.findAvailableBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<Book>> getAvailableBooks(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String sort) {
+        return page(BookFilter::available, after, limit, sort);
     }
 
     @GetMapping("/check-availability")
@@ -121,10 +169,27 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String query) {
+    public ResponseEntity<List<Book>> searchBooks(@RequestParam String query,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String sort) {
+        return page(() -> BookFilter.titleOrAuthorContains(query), after, limit, sort, BookSort.RELEVANCE);
+    }
+
+    private ResponseEntity<List<Book>> page(Supplier<BookFilter> filter, String after, int limit, String sort) {
+        return page(filter, after, limit, sort, BookSort.ID);
+    }
+
+    private ResponseEntity<List<Book>> page(Supplier<BookFilter> filter, String after, int limit, String sort,
+            BookSort defaultSort) {
         try {
-            List<Book> books = bookService.searchBooks(query);
-            return ResponseEntity.ok(books);
+            BookPage page = bookService.findBooksPage(filter.get(), BookSort.fromParameter(sort, defaultSort), after,
+                    limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasNext()) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -5,9 +5,18 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 
 @Entity
+@Table(name = "book",
+        uniqueConstraints = @UniqueConstraint(name = "uk_book_isbn", columnNames = "isbn"),
+        indexes = {
+                @Index(name = "idx_book_publication_year", columnList = "publication_year"),
+                @Index(name = "idx_book_copies", columnList = "copies")
+        })
 @Data
 public class Book {
     @Id
@@ -1,15 +1,25 @@
 package com.library.api.repository;
 
 import com.library.api.model.Book;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
-    // Find books by title containing the given string (case-insensitive)
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+    // Find books by title containing the given string (case-insensitive).
+    // These compare upper(..), which the lower(..) trigram indexes cannot
+    // serve; BookServiceImpl searches through lower(..) specifications instead
     List<Book> findByTitleContainingIgnoreCase(String title);
 
     // Find books by author containing the given string (case-insensitive)
@@ -23,4 +33,13 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     // Find books with available copies (copies > 0)
     List<Book> findByCopiesGreaterThan(int copies);
+
+    // Forward-only cursor over every book in id order, fetched from the
+    // driver in batches; must be consumed and closed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllByOrderById();
 }
\ No newline at end of file
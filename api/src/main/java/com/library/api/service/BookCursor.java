@@ -0,0 +1,80 @@
+package com.library.api.service;
+
+import com.library.api.model.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key plus the sort value and id of the last
+ * book on a page, Base64url encoded. The next page starts strictly after
+ * that (value, id) pair, so it costs an index seek instead of an offset scan.
+ */
+final class BookCursor {
+
+    private final BookSort sort;
+    private final long id;
+    private final String value;
+
+    private BookCursor(BookSort sort, long id, String value) {
+        this.sort = sort;
+        this.id = id;
+        this.value = value;
+    }
+
+    static String after(Book book, BookSort sort) {
+        return encode(sort, book.getId(), valueOf(book, sort));
+    }
+
+    static String encode(BookSort sort, long id, String value) {
+        String raw = sort.name() + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static BookCursor decode(String cursor, BookSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            BookSort sort = BookSort.valueOf(parts[0]);
+            if (sort != expectedSort || parts.length != 3) {
+                throw new IllegalArgumentException("Cursor does not match sort " + expectedSort);
+            }
+            BookCursor decoded = new BookCursor(sort, Long.parseLong(parts[1]), parts[2]);
+            if (sort == BookSort.YEAR || sort == BookSort.RELEVANCE) {
+                decoded.intValue();
+            }
+            return decoded;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String stringValue() {
+        return value;
+    }
+
+    int intValue() {
+        return Integer.parseInt(value);
+    }
+
+    BookSort getSort() {
+        return sort;
+    }
+
+    private static String valueOf(Book book, BookSort sort) {
+        switch (sort) {
+            case TITLE:
+                return book.getTitle();
+            case AUTHOR:
+                return book.getAuthor();
+            case YEAR:
+                return String.valueOf(book.getYear());
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.library.api.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Which books a paginated listing returns
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookFilter {
+
+    public enum Type {
+        ALL, AVAILABLE, TITLE, AUTHOR, TITLE_OR_AUTHOR, YEAR
+    }
+
+    private final Type type;
+    private final String text;
+    private final int year;
+
+    public static BookFilter all() {
+        return new BookFilter(Type.ALL, null, 0);
+    }
+
+    public static BookFilter available() {
+        return new BookFilter(Type.AVAILABLE, null, 0);
+    }
+
+    public static BookFilter titleContains(String title) {
+        return new BookFilter(Type.TITLE, requireText(title, "Title cannot be empty"), 0);
+    }
+
+    public static BookFilter authorContains(String author) {
+        return new BookFilter(Type.AUTHOR, requireText(author, "Author cannot be empty"), 0);
+    }
+
+    public static BookFilter titleOrAuthorContains(String query) {
+        return new BookFilter(Type.TITLE_OR_AUTHOR, requireText(query, "Search query cannot be empty"), 0);
+    }
+
+    public static BookFilter year(int year) {
+        if (year < 0) {
+            throw new IllegalArgumentException("Year cannot be negative");
+        }
+        return new BookFilter(Type.YEAR, null, year);
+    }
+
+    private static String requireText(String text, String message) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException(message);
+        }
+        return text;
+    }
+}
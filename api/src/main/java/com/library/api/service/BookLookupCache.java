@@ -0,0 +1,136 @@
+package com.library.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.api.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of books by id, with an ISBN to id index, in front of
+ * BookRepository. Caffeine evicts by size with W-TinyLFU, so a scan of
+ * rarely read books cannot push out the hot titles, and entries expire
+ * after a TTL as a backstop for writes that bypass BookService.
+ *
+ * Callers get copies, never the cached instance. Missing books are not
+ * cached. Writers call evict, which drops the entries at once and again
+ * when the transaction completes; a load that overlaps an eviction is
+ * returned but not cached, so a reader cannot put back the old row.
+ *
+ * Hits, misses and evictions are published as the cache.* meters of
+ * books.byId and books.byIsbn.
+ */
+@Component
+public class BookLookupCache implements MeterBinder {
+
+    private final Cache<Long, Book> byId;
+    private final Cache<String, Long> idByIsbn;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BookLookupCache(@Value("${library.cache.books.max-size:10000}") long maxSize,
+            @Value("${library.cache.books.ttl:10m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByIsbn = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Book> getById(Long id, Function<Long, Optional<Book>> loader) {
+        Book cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        return load(() -> loader.apply(id));
+    }
+
+    public Optional<Book> getByIsbn(String isbn, Function<String, Optional<Book>> loader) {
+        Long id = idByIsbn.getIfPresent(isbn);
+        Book cached = id == null ? null : byId.getIfPresent(id);
+        // The index entry can outlive the book or point at a book whose ISBN changed
+        if (cached != null && isbn.equals(cached.getIsbn())) {
+            return Optional.of(copy(cached));
+        }
+        return load(() -> loader.apply(isbn));
+    }
+
+    /**
+     * Drops the book with this id and ISBN; either may be null
+     */
+    public void evict(Long id, String isbn) {
+        evictNow(id, isbn);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Readers may still load the old row until the change commits
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id, isbn);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the book and, if it is cached, the ISBN it was cached under
+     */
+    public void evictId(Long id) {
+        Book cached = id == null ? null : byId.getIfPresent(id);
+        evict(id, cached == null ? null : cached.getIsbn());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "books.byId");
+        CaffeineCacheMetrics.monitor(registry, idByIsbn, "books.byIsbn");
+    }
+
+    private Optional<Book> load(Supplier<Optional<Book>> loader) {
+        long before = evictions.get();
+        Optional<Book> loaded = loader.get();
+        if (loaded.isPresent() && loaded.get().getId() != null && evictions.get() == before) {
+            Book book = copy(loaded.get());
+            byId.put(book.getId(), book);
+            if (book.getIsbn() != null) {
+                idByIsbn.put(book.getIsbn(), book.getId());
+            }
+        }
+        return loaded;
+    }
+
+    private void evictNow(Long id, String isbn) {
+        evictions.incrementAndGet();
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        if (isbn != null) {
+            idByIsbn.invalidate(isbn);
+        }
+    }
+
+    static Book copy(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setIsbn(book.getIsbn());
+        copy.setYear(book.getYear());
+        copy.setCopies(book.getCopies());
+        return copy;
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.api.service;
+
+import com.library.api.model.Book;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of a book listing. nextCursor is null on the last page.
+ */
+@Value
+public class BookPage {
+    List<Book> items;
+    String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -3,6 +3,7 @@ package com.library.api.service;
 import com.library.api.model.Book;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     // CRUD Operations
@@ -33,4 +34,26 @@ public interface BookService {
 
     // Search Operations
     List<Book> searchBooks(String query);
+
+    // Paginated listings
+
+    /**
+     * Returns one page of the books matching the filter, in sort order.
+     *
+     * @param filter which books to list
+     * @param sort   sort key; ties are broken by id
+     * @param after  cursor from the previous page, or null for the first page
+     * @param limit  page size, capped at {@link #MAX_PAGE_SIZE}
+     */
+    BookPage findBooksPage(BookFilter filter, BookSort sort, String after, int limit);
+
+    int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Passes every book, in id order, to the consumer while reading them
+     * from a database cursor, so memory use does not grow with the table.
+     *
+     * @return the number of books exported
+     */
+    long exportBooks(Consumer<Book> consumer);
 }
\ No newline at end of file
@@ -1,27 +1,52 @@
 package com.library.api.service;
 
 import com.library.api.model.Book;
+import com.library.api.config.MetricsConfig;
 import com.library.api.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    // Id and ISBN lookups; every write below evicts the books it touches
+    private final BookLookupCache lookupCache;
+    // Search result pages; every write below makes them all stale
+    private final SearchResultCache searchCache;
 
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, EntityManager entityManager,
+            BookLookupCache lookupCache, SearchResultCache searchCache) {
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.lookupCache = lookupCache;
+        this.searchCache = searchCache;
     }
 
     @Override
@@ -39,12 +64,14 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("Number of copies cannot be negative");
         }
 
-        // Check if book with same ISBN already exists
-        if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
-            throw new IllegalStateException("Book with ISBN " + book.getIsbn() + " already exists");
+        // The unique index on isbn rejects duplicates, also between concurrent requests
+        try {
+            Book saved = bookRepository.saveAndFlush(book);
+            bookChanged(saved.getId(), saved.getIsbn());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Book with ISBN " + book.getIsbn() + " already exists", e);
         }
-
-        return bookRepository.save(book);
     }
 
     @Override
@@ -59,7 +86,7 @@ public class BookServiceImpl implements BookService {
         if (id == null) {
             throw new IllegalArgumentException("Book ID cannot be null");
         }
-        return bookRepository.findById(id);
+        return lookupCache.getById(id, bookRepository::findById);
     }
 
     @Override
@@ -68,7 +95,7 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be empty");
         }
-        return bookRepository.findByIsbn(isbn);
+        return lookupCache.getByIsbn(isbn, bookRepository::findByIsbn);
     }
 
     @Override
@@ -82,12 +109,19 @@ public class BookServiceImpl implements BookService {
 
         return bookRepository.findById(id)
                 .map(existingBook -> {
+                    // Both the old and the new ISBN may be cached
+                    bookChanged(id, existingBook.getIsbn());
+                    lookupCache.evict(id, book.getIsbn());
                     existingBook.setTitle(book.getTitle());
                     existingBook.setAuthor(book.getAuthor());
                     existingBook.setIsbn(book.getIsbn());
                     existingBook.setYear(book.getYear());
                     existingBook.setCopies(book.getCopies());
-                    return bookRepository.save(existingBook);
+                    try {
+                        return bookRepository.saveAndFlush(existingBook);
+                    } catch (DataIntegrityViolationException e) {
+                        throw new IllegalStateException("Book with ISBN " + book.getIsbn() + " already exists", e);
+                    }
                 })
                 .orElseThrow(() -> new IllegalStateException("Book with ID " + id + " not found"));
     }
@@ -100,6 +134,8 @@ public class BookServiceImpl implements BookService {
         if (!bookRepository.existsById(id)) {
             throw new IllegalStateException("Book with ID " + id + " not found");
         }
+        lookupCache.evictId(id);
+        searchCache.catalogChanged();
         bookRepository.deleteById(id);
     }
 
@@ -109,7 +145,8 @@ public class BookServiceImpl implements BookService {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Title cannot be empty");
         }
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+        // lower(title) LIKE, the expression the trigram index is built on
+        return bookRepository.findAll(matching(BookFilter.titleContains(title)));
     }
 
     @Override
@@ -118,7 +155,7 @@ public class BookServiceImpl implements BookService {
         if (author == null || author.trim().isEmpty()) {
             throw new IllegalArgumentException("Author cannot be empty");
         }
-        return bookRepository.findByAuthorContainingIgnoreCase(author);
+        return bookRepository.findAll(matching(BookFilter.authorContains(author)));
     }
 
     @Override
@@ -142,7 +179,7 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be empty");
         }
-        return bookRepository.findByIsbn(isbn)
+        return getBookByIsbn(isbn)
                 .map(book -> book.getCopies() > 0)
                 .orElse(false);
     }
@@ -161,6 +198,7 @@ public class BookServiceImpl implements BookService {
 
         book.setCopies(copies);
         bookRepository.save(book);
+        bookChanged(book.getId(), isbn);
     }
 
     @Override
@@ -170,15 +208,179 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("Search query cannot be empty");
         }
 
-        // Search in both title and author
-        List<Book> titleResults = bookRepository.findByTitleContainingIgnoreCase(query);
-        List<Book> authorResults = bookRepository.findByAuthorContainingIgnoreCase(query);
+        // One query over title and author, each row once, best match first
+        return searchByRelevance(query, null, 0).stream()
+                .map(row -> row.get(0, Book.class))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPage findBooksPage(BookFilter filter, BookSort sort, String after, int limit) {
+        if (filter == null || sort == null) {
+            throw new IllegalArgumentException("Filter and sort are required");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        return searchCache.get(filter, sort, after, pageSize, () -> queryPage(filter, sort, after, pageSize));
+    }
+
+    private BookPage queryPage(BookFilter filter, BookSort sort, String after, int pageSize) {
+        if (sort == BookSort.RELEVANCE) {
+            return relevancePage(filter, after, pageSize);
+        }
+
+        Specification<Book> spec = matching(filter);
+        if (after != null && !after.isEmpty()) {
+            spec = spec.and(after(BookCursor.decode(after, sort)));
+        }
+        Sort order = sort == BookSort.ID
+                ? Sort.by("id")
+                : Sort.by(sort.getProperty()).and(Sort.by("id"));
+
+        // Fetch one extra row to learn whether there is a next page without counting
+        List<Book> rows = bookRepository.findBy(spec, query -> query.sortBy(order).limit(pageSize + 1).all());
+        if (rows.size() <= pageSize) {
+            return new BookPage(rows, null);
+        }
+        List<Book> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new BookPage(items, BookCursor.after(items.get(pageSize - 1), sort));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(Consumer<Book> consumer) {
+        long count = 0;
+        try (Stream<Book> books = bookRepository.streamAllByOrderById()) {
+            Iterator<Book> it = books.iterator();
+            while (it.hasNext()) {
+                Book book = it.next();
+                consumer.accept(book);
+                // Keep the persistence context from growing with the table
+                entityManager.detach(book);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void bookChanged(Long id, String isbn) {
+        lookupCache.evict(id, isbn);
+        searchCache.catalogChanged();
+    }
+
+    private BookPage relevancePage(BookFilter filter, String after, int pageSize) {
+        if (filter.getType() != BookFilter.Type.TITLE_OR_AUTHOR) {
+            throw new IllegalArgumentException("Relevance order needs a search query");
+        }
+        BookCursor cursor = after == null || after.isEmpty() ? null : BookCursor.decode(after, BookSort.RELEVANCE);
+        List<Tuple> rows = searchByRelevance(filter.getText(), cursor, pageSize + 1);
+        List<Book> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            items.add(rows.get(i).get(0, Book.class));
+        }
+        if (rows.size() <= pageSize) {
+            return new BookPage(items, null);
+        }
+        Tuple last = rows.get(pageSize - 1);
+        Book lastBook = last.get(0, Book.class);
+        return new BookPage(items,
+                BookCursor.encode(BookSort.RELEVANCE, lastBook.getId(), String.valueOf(last.get(1, Integer.class))));
+    }
+
+    /*
+     * Books whose title or author contains the text, as (book, rank) rows
+     * ordered by rank then id, in a single query. Ranks: 0 exact title,
+     * 1 title prefix, 2 title substring, 3 exact author, 4 author prefix,
+     * 5 author substring. The lower(...) LIKE '%text%' predicates can use
+     * trigram indexes on PostgreSQL; H2 evaluates the same query by scanning.
+     */
+    private List<Tuple> searchByRelevance(String text, BookCursor after, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+
+        String lower = text.toLowerCase();
+        Expression<String> title = cb.lower(root.get("title"));
+        Expression<String> author = cb.lower(root.get("author"));
+        Expression<Integer> rank = cb.<Integer>selectCase()
+                .when(cb.equal(title, lower), 0)
+                .when(cb.like(title, escapeLike(lower) + "%", '\\'), 1)
+                .when(cb.like(title, "%" + escapeLike(lower) + "%", '\\'), 2)
+                .when(cb.equal(author, lower), 3)
+                .when(cb.like(author, escapeLike(lower) + "%", '\\'), 4)
+                .otherwise(5);
 
-        // Combine results and remove duplicates using a Set
-        Set<Book> uniqueResults = new HashSet<>();
-        uniqueResults.addAll(titleResults);
-        uniqueResults.addAll(authorResults);
+        Predicate matches = cb.or(
+                containsIgnoreCase(cb, root.get("title"), text),
+                containsIgnoreCase(cb, root.get("author"), text));
+        if (after != null) {
+            Path<Long> id = root.get("id");
+            matches = cb.and(matches, cb.or(
+                    cb.greaterThan(rank, after.intValue()),
+                    cb.and(cb.equal(rank, after.intValue()), cb.greaterThan(id, after.getId()))));
+        }
+        query.multiselect(root, rank).where(matches).orderBy(cb.asc(rank), cb.asc(root.get("id")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (maxResults > 0) {
+            typed.setMaxResults(maxResults);
+        }
+        return typed.getResultList();
+    }
+
+    private static Specification<Book> matching(BookFilter filter) {
+        switch (filter.getType()) {
+            case AVAILABLE:
+                return (root, query, cb) -> cb.greaterThan(root.get("copies"), 0);
+            case TITLE:
+                return (root, query, cb) -> containsIgnoreCase(cb, root.get("title"), filter.getText());
+            case AUTHOR:
+                return (root, query, cb) -> containsIgnoreCase(cb, root.get("author"), filter.getText());
+            case TITLE_OR_AUTHOR:
+                return (root, query, cb) -> cb.or(
+                        containsIgnoreCase(cb, root.get("title"), filter.getText()),
+                        containsIgnoreCase(cb, root.get("author"), filter.getText()));
+            case YEAR:
+                return (root, query, cb) -> cb.equal(root.get("year"), filter.getYear());
+            default:
+                return (root, query, cb) -> cb.conjunction();
+        }
+    }
+
+    // Rows strictly after the cursor in (sort value, id) order
+    private static Specification<Book> after(BookCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            switch (cursor.getSort()) {
+                case TITLE:
+                case AUTHOR:
+                    return afterKey(cb, root, cursor.getSort().getProperty(), cursor.stringValue(), cursor.getId());
+                case YEAR:
+                    return afterKey(cb, root, "year", cursor.intValue(), cursor.getId());
+                default:
+                    return cb.greaterThan(id, cursor.getId());
+            }
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate afterKey(CriteriaBuilder cb, Root<Book> root,
+            String property, T value, long lastId) {
+        Path<T> key = root.get(property);
+        return cb.or(
+                cb.greaterThan(key, value),
+                cb.and(cb.equal(key, value), cb.greaterThan(root.get("id"), lastId)));
+    }
+
+    private static Predicate containsIgnoreCase(CriteriaBuilder cb, Path<String> field, String text) {
+        return cb.like(cb.lower(field), "%" + escapeLike(text.toLowerCase()) + "%", '\\');
+    }
 
-        return new ArrayList<>(uniqueResults);
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.library.api.service;
+
+/**
+ * Sort keys supported by the paginated book listings. Every key is combined
+ * with the book id so that the order, and therefore the cursor, is total.
+ * RELEVANCE only applies to title-or-author searches.
+ */
+public enum BookSort {
+    ID("id"),
+    TITLE("title"),
+    AUTHOR("author"),
+    YEAR("year"),
+    RELEVANCE(null);
+
+    private final String property;
+
+    BookSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static BookSort fromParameter(String value) {
+        return fromParameter(value, ID);
+    }
+
+    public static BookSort fromParameter(String value, BookSort defaultSort) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultSort;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported sort key: " + value);
+        }
+    }
+}
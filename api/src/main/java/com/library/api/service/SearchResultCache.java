@@ -0,0 +1,135 @@
+package com.library.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.api.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pages of search results (title, author, title-or-author and year
+ * filters), keyed by the normalized query, sort, cursor and page size.
+ * The cache is bounded by an estimate of the memory the pages take.
+ *
+ * Every key also carries the catalog generation, which each write through
+ * BookServiceImpl advances, once right away and once when its transaction
+ * completes. A page is only ever read back under the generation it was
+ * computed in, so a search never returns results from before a write;
+ * pages of older generations are simply never read again and age out.
+ */
+@Component
+public class SearchResultCache implements MeterBinder {
+
+    // Rough heap cost of a page, of each book in it and of each character
+    private static final int PAGE_OVERHEAD = 128;
+    private static final int BOOK_OVERHEAD = 96;
+    private static final int BYTES_PER_CHAR = 2;
+
+    private record Key(long generation, BookFilter.Type type, String text, int year, BookSort sort, String after,
+            int pageSize) {
+    }
+
+    private final Cache<Key, BookPage> pages;
+    private final AtomicLong generation = new AtomicLong();
+
+    public SearchResultCache(@Value("${library.cache.search.max-memory:16MB}") DataSize maxMemory,
+            @Value("${library.cache.search.ttl:5m}") Duration ttl) {
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((Key key, BookPage page) -> weigh(page))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached page for a search, or runs the query and caches its
+     * result. Listings that are not searches always run the query.
+     */
+    public BookPage get(BookFilter filter, BookSort sort, String after, int pageSize, Supplier<BookPage> query) {
+        if (!isSearch(filter)) {
+            return query.get();
+        }
+        // Searches ignore case, so "Java" and "java" share an entry
+        String text = filter.getText() == null ? null : filter.getText().toLowerCase();
+        Key key = new Key(generation.get(), filter.getType(), text, filter.getYear(), sort, after, pageSize);
+        BookPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+        BookPage page = query.get();
+        pages.put(key, copy(page));
+        return page;
+    }
+
+    /**
+     * Makes every cached page stale; call on each write to the catalog
+     */
+    public void catalogChanged() {
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Searches running before the commit still see the old rows
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, pages, "books.search");
+    }
+
+    // Runs pending evictions now rather than on Caffeine's executor
+    void cleanUp() {
+        pages.cleanUp();
+    }
+
+    private static boolean isSearch(BookFilter filter) {
+        switch (filter.getType()) {
+            case TITLE:
+            case AUTHOR:
+            case TITLE_OR_AUTHOR:
+            case YEAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static BookPage copy(BookPage page) {
+        List<Book> items = new ArrayList<>(page.getItems().size());
+        for (Book book : page.getItems()) {
+            items.add(BookLookupCache.copy(book));
+        }
+        return new BookPage(items, page.getNextCursor());
+    }
+
+    private static int weigh(BookPage page) {
+        long bytes = PAGE_OVERHEAD + length(page.getNextCursor()) * BYTES_PER_CHAR;
+        for (Book book : page.getItems()) {
+            bytes += BOOK_OVERHEAD + (length(book.getTitle()) + length(book.getAuthor()) + length(book.getIsbn()))
+                    * BYTES_PER_CHAR;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -0,0 +1,7 @@
+-- Indexes JPA annotations cannot express. Run after Hibernate has created or
+-- updated the tables (spring.jpa.defer-datasource-initialization=true).
+
+-- Trigram indexes let lower(title|author) LIKE '%text%' searches use an index
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_book_title_trgm ON book USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_book_author_trgm ON book USING gin (lower(author) gin_trgm_ops);
@@ -0,0 +1,73 @@
+package com.library.api.config;
+
+import com.library.api.model.Book;
+import com.library.api.repository.BookRepository;
+import com.library.api.repository.PatronRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class DataLoaderTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void importBooksInsertsInBatchesAndSkipsDuplicatesAndMalformedLines() throws Exception {
+        Path file = tempDir.resolve("books.txt");
+        Files.write(file, Arrays.asList(
+                "#journal|7",
+                "Dune|Frank Herbert|111|2|1965|B",
+                "Emma|Jane Austen|222|1|1815",
+                "Dune Copy|Someone|111|1|2000",
+                "Broken|Author|333|many|1999",
+                "Ubik|Philip K. Dick|444|3|1969|E|1.5|EPUB"));
+
+        // Batch size 2 forces a full batch plus a partial one
+        BookDataLoader loader = new BookDataLoader(bookRepository, jdbcTemplate, file.toString(), 2);
+        String report = loader.importBooks(file);
+
+        assertThat(report).startsWith("Imported 3 books").contains("rows/s");
+        assertThat(bookRepository.findAll()).extracting(Book::getIsbn)
+                .containsExactlyInAnyOrder("111", "222", "444");
+        Book dune = bookRepository.findByIsbn("111").orElseThrow();
+        assertThat(dune.getTitle()).isEqualTo("Dune");
+        assertThat(dune.getCopies()).isEqualTo(2);
+        assertThat(dune.getYear()).isEqualTo(1965);
+    }
+
+    @Test
+    void importPatronsInsertsEveryWellFormedLine() throws Exception {
+        Path file = tempDir.resolve("patrons.txt");
+        Files.write(file, Arrays.asList(
+                "1|John Doe|john@example.com",
+                "2|Jane Smith|jane@example.com",
+                "bad line",
+                "3|Ana Ruiz|ana@example.com"));
+
+        PatronDataLoader loader = new PatronDataLoader(patronRepository, jdbcTemplate, file.toString(), 2);
+        String report = loader.importPatrons(file);
+
+        assertThat(report).startsWith("Imported 3 patrons");
+        assertThat(patronRepository.count()).isEqualTo(3);
+        assertThat(patronRepository.findByPatronId("2").getName()).isEqualTo("Jane Smith");
+    }
+}
@@ -0,0 +1,56 @@
+package com.library.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "library.books.filepath=target/no-books.txt",
+        "library.patrons.filepath=target/no-patrons.txt"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusEndpointExposesRequestServiceRepositoryPoolAndJvmMetrics() throws Exception {
+        mockMvc.perform(get("/api/books/search").param("query", "java")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/check-availability").param("isbn", "123")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "http_server_requests_seconds_count{application=\"library-api\"")))
+                .andExpect(content().string(containsString("uri=\"/api/books/search\"")))
+                .andExpect(content().string(containsString("library_book_service_seconds_count")))
+                .andExpect(content().string(containsString("method=\"findBooksPage\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("jvm_gc_")))
+                .andExpect(content().string(containsString("jvm_memory_used_bytes")));
+    }
+
+    @Test
+    void percentilesOnlyForConfiguredEndpoints() throws Exception {
+        mockMvc.perform(get("/api/books/search").param("query", "java")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/available")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("uri=\"/api/books/search\",quantile=\"0.99\"")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(not(containsString("uri=\"/api/books/available\",quantile="))));
+    }
+}
@@ -1,7 +1,10 @@
 package com.library.api.controller;
 
 import com.library.api.model.Book;
+import com.library.api.service.BookFilter;
+import com.library.api.service.BookPage;
 import com.library.api.service.BookService;
+import com.library.api.service.BookSort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,14 +12,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,14 +53,36 @@ class BookControllerTest {
     @Test
     void whenGetAllBooks_thenReturnBooksList() throws Exception {
         List<Book> books = Arrays.asList(testBook);
-        when(bookService.getAllBooks()).thenReturn(books);
+        when(bookService.findBooksPage(any(BookFilter.class), eq(BookSort.ID), isNull(), eq(50)))
+                .thenReturn(new BookPage(books, null));
 
         mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookController.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].title", is(testBook.getTitle())));
     }
 
+    @Test
+    void whenGetBooksPage_thenReturnNextCursorHeader() throws Exception {
+        when(bookService.findBooksPage(any(BookFilter.class), eq(BookSort.TITLE), eq("abc"), eq(1)))
+                .thenReturn(new BookPage(Arrays.asList(testBook), "def"));
+
+        mockMvc.perform(get("/api/books")
+                .param("after", "abc")
+                .param("limit", "1")
+                .param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "def"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void whenGetBooksWithUnknownSort_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books").param("sort", "isbn"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void whenGetBookById_thenReturnBook() throws Exception {
         when(bookService.getBookById(anyLong())).thenReturn(Optional.of(testBook));
@@ -107,7 +136,8 @@ class BookControllerTest {
     @Test
     void whenSearchBooksByTitle_thenReturnMatchingBooks() throws Exception {
         List<Book> books = Arrays.asList(testBook);
-        when(bookService.findBooksByTitle(anyString())).thenReturn(books);
+        when(bookService.findBooksPage(any(BookFilter.class), any(BookSort.class), isNull(), anyInt()))
+                .thenReturn(new BookPage(books, null));
 
         mockMvc.perform(get("/api/books/search/title")
                 .param("title", "Test"))
@@ -119,7 +149,8 @@ class BookControllerTest {
     @Test
     void whenSearchBooksByAuthor_thenReturnMatchingBooks() throws Exception {
         List<Book> books = Arrays.asList(testBook);
-        when(bookService.findBooksByAuthor(anyString())).thenReturn(books);
+        when(bookService.findBooksPage(any(BookFilter.class), any(BookSort.class), isNull(), anyInt()))
+                .thenReturn(new BookPage(books, null));
 
         mockMvc.perform(get("/api/books/search/author")
                 .param("author", "Test"))
@@ -131,7 +162,8 @@ class BookControllerTest {
     @Test
     void whenGetAvailableBooks_thenReturnAvailableBooks() throws Exception {
         List<Book> books = Arrays.asList(testBook);
-        when(bookService.findAvailableBooks()).thenReturn(books);
+        when(bookService.findBooksPage(any(BookFilter.class), any(BookSort.class), isNull(), anyInt()))
+                .thenReturn(new BookPage(books, null));
 
         mockMvc.perform(get("/api/books/available"))
                 .andExpect(status().isOk())
@@ -157,4 +189,27 @@ class BookControllerTest {
                 .param("copies", "10"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void whenExportBooks_thenStreamNdjson() throws Exception {
+        Book second = new Book();
+        second.setId(2L);
+        second.setTitle("Second Book");
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(testBook);
+            consumer.accept(second);
+            return 2L;
+        }).when(bookService).exportBooks(any());
+
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookController.NDJSON))
+                .andExpect(content().string(matchesPattern(
+                        "\\{\"id\":1,\"title\":\"Test Book\".*}\n\\{\"id\":2,\"title\":\"Second Book\".*}\n")));
+    }
 }
\ No newline at end of file
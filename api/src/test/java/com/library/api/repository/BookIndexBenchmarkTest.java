@@ -0,0 +1,95 @@
+package com.library.api.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares lookup latency with and without the Book indexes on the embedded
+ * database. Skipped unless a row count is given, e.g.
+ * mvn test -Dtest=BookIndexBenchmarkTest -Dbenchmark.rows=1000000
+ */
+@DataJpaTest(properties = { "spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.orm.jdbc.bind=WARN" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark.rows", matches = "\\d+")
+class BookIndexBenchmarkTest {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int LOOKUPS = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void compareLookupLatencyWithAndWithoutIndexes() {
+        int rows = Integer.getInteger("benchmark.rows");
+        insertBooks(rows);
+
+        long[] indexed = measure(rows);
+        jdbcTemplate.execute("ALTER TABLE book DROP CONSTRAINT uk_book_isbn");
+        jdbcTemplate.execute("DROP INDEX idx_book_publication_year");
+        jdbcTemplate.execute("DROP INDEX idx_book_copies");
+        long[] scanned = measure(rows);
+
+        System.out.printf("%n%,d rows, mean latency in microseconds (indexed / no index)%n", rows);
+        System.out.printf("  findByIsbn:  %,8d / %,8d%n", indexed[0], scanned[0]);
+        System.out.printf("  findByYear:  %,8d / %,8d%n", indexed[1], scanned[1]);
+        assertThat(indexed[0]).isLessThan(scanned[0]);
+    }
+
+    private void insertBooks(int rows) {
+        Random random = new Random(42);
+        for (int start = 0; start < rows; start += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = start; i < Math.min(rows, start + BATCH_SIZE); i++) {
+                batch.add(new Object[] { "Title " + i, "Author " + (i % 50_000), isbn(i),
+                        1500 + random.nextInt(525), random.nextInt(5) });
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO book (title, author, isbn, publication_year, copies) VALUES (?, ?, ?, ?, ?)",
+                    batch);
+        }
+    }
+
+    // Mean microseconds per findByIsbn and per findByYear lookup
+    private long[] measure(int rows) {
+        Random random = new Random(7);
+        // Warm up the JIT and the connection before timing
+        for (int i = 0; i < LOOKUPS / 10; i++) {
+            bookRepository.findByIsbn(isbn(random.nextInt(rows)));
+            bookRepository.findByYear(1500 + random.nextInt(525));
+        }
+        long isbnNanos = 0;
+        long yearNanos = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            long start = System.nanoTime();
+            bookRepository.findByIsbn(isbn(random.nextInt(rows)));
+            isbnNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            bookRepository.findByYear(1500 + random.nextInt(525));
+            yearNanos += System.nanoTime() - start;
+        }
+        return new long[] { isbnNanos / LOOKUPS / 1000, yearNanos / LOOKUPS / 1000 };
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+}
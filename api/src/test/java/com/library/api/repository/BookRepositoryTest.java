@@ -6,11 +6,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 public class BookRepositoryTest {
@@ -116,4 +120,41 @@ public class BookRepositoryTest {
         // then
         assertThat(deleted).isEmpty();
     }
+
+    @Test
+    void whenStreamAllByOrderById_thenReturnBooksInIdOrder() {
+        // given
+        Book second = new Book();
+        second.setTitle("Another Book");
+        second.setAuthor("Another Author");
+        second.setIsbn("1111111111");
+        second.setYear(2020);
+        second.setCopies(1);
+        entityManager.persist(second);
+        entityManager.flush();
+
+        // when
+        List<Long> ids;
+        try (Stream<Book> books = bookRepository.streamAllByOrderById()) {
+            ids = books.map(Book::getId).collect(Collectors.toList());
+        }
+
+        // then
+        assertThat(ids).containsExactly(testBook.getId(), second.getId());
+    }
+
+    @Test
+    void whenSaveBookWithDuplicateIsbn_thenUniqueConstraintRejectsIt() {
+        // given
+        Book duplicate = new Book();
+        duplicate.setTitle("Duplicate Book");
+        duplicate.setAuthor("Duplicate Author");
+        duplicate.setIsbn(testBook.getIsbn());
+        duplicate.setYear(2024);
+        duplicate.setCopies(1);
+
+        // when / then
+        assertThatThrownBy(() -> bookRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.library.api.service;
+
+import com.library.api.model.Book;
+import com.library.api.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookLookupCacheTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookLookupCache lookupCache;
+    private BookServiceImpl bookService;
+    private Book storedBook;
+
+    @BeforeEach
+    void setUp() {
+        lookupCache = new BookLookupCache(100, Duration.ofMinutes(10));
+        bookService = new BookServiceImpl(bookRepository, null, lookupCache,
+                new SearchResultCache(DataSize.ofMegabytes(1), Duration.ofMinutes(5)));
+        storedBook = book(1L, "1234567890", 5);
+    }
+
+    @Test
+    void repeatedLookupsHitTheCache() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+
+        assertEquals("Test Book", bookService.getBookById(1L).get().getTitle());
+        assertEquals("Test Book", bookService.getBookById(1L).get().getTitle());
+        assertTrue(bookService.isBookAvailable("1234567890"));
+        assertEquals(1L, bookService.getBookByIsbn("1234567890").get().getId());
+
+        verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, never()).findByIsbn(any());
+    }
+
+    @Test
+    void callersCannotChangeTheCachedBook() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+
+        bookService.getBookById(1L).get().setCopies(0);
+        bookService.getBookById(1L).get().setTitle("Changed");
+
+        Book cached = bookService.getBookById(1L).get();
+        assertEquals(5, cached.getCopies());
+        assertEquals("Test Book", cached.getTitle());
+    }
+
+    @Test
+    void updateCopiesEvictsTheBook() {
+        when(bookRepository.findByIsbn("1234567890")).thenReturn(Optional.of(storedBook));
+        assertTrue(bookService.isBookAvailable("1234567890"));
+
+        bookService.updateBookCopies("1234567890", 0);
+
+        assertFalse(bookService.isBookAvailable("1234567890"));
+        verify(bookRepository, times(3)).findByIsbn("1234567890");
+    }
+
+    @Test
+    void updateEvictsTheOldIsbnAndDeleteEvictsBothKeys() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+        when(bookRepository.findByIsbn("1234567890")).thenReturn(Optional.of(storedBook));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenAnswer(call -> call.getArgument(0));
+        bookService.getBookByIsbn("1234567890");
+
+        bookService.updateBook(1L, book(1L, "999", 5));
+        when(bookRepository.findByIsbn("1234567890")).thenReturn(Optional.empty());
+        assertFalse(bookService.getBookByIsbn("1234567890").isPresent());
+        assertEquals("999", bookService.getBookById(1L).get().getIsbn());
+
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        bookService.deleteBook(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bookRepository.findByIsbn("999")).thenReturn(Optional.empty());
+        assertFalse(bookService.getBookById(1L).isPresent());
+        assertFalse(bookService.getBookByIsbn("999").isPresent());
+    }
+
+    @Test
+    void loadOverlappingAnEvictionIsNotCached() {
+        Optional<Book> loaded = lookupCache.getById(1L, id -> {
+            // A writer evicts the book while this reader has the old row
+            lookupCache.evict(1L, "1234567890");
+            return Optional.of(storedBook);
+        });
+        assertTrue(loaded.isPresent());
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book(1L, "1234567890", 0)));
+        assertEquals(0, bookService.getBookById(1L).get().getCopies());
+    }
+
+    @Test
+    void hitAndMissCountsArePublished() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        lookupCache.bindTo(registry);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+
+        bookService.getBookById(1L);
+        bookService.getBookById(1L);
+        bookService.getBookById(1L);
+
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "books.byId").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "books.byId").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    private static Book book(Long id, String isbn, int copies) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setAuthor("Test Author");
+        book.setIsbn(isbn);
+        book.setYear(2024);
+        book.setCopies(copies);
+        return book;
+    }
+}
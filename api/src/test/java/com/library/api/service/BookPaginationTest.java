@@ -0,0 +1,136 @@
+package com.library.api.service;
+
+import com.library.api.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import({ BookServiceImpl.class, BookLookupCache.class, SearchResultCache.class })
+class BookPaginationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        // Duplicate titles and years exercise the id tie-breaker
+        persist("Dune", "Frank Herbert", "100", 1965, 2);
+        persist("Emma", "Jane Austen", "101", 1815, 0);
+        persist("Dune", "Frank Herbert", "102", 1965, 1);
+        persist("100% Java", "Some Author", "103", 2020, 4);
+        persist("Beloved", "Toni Morrison", "104", 1987, 3);
+        entityManager.flush();
+    }
+
+    @Test
+    void whenPagingByTitle_thenEveryBookIsReturnedOnceInOrder() {
+        List<String> titles = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            BookPage page = bookService.findBooksPage(BookFilter.all(), BookSort.TITLE, cursor, 2);
+            page.getItems().forEach(b -> {
+                titles.add(b.getTitle());
+                ids.add(b.getId());
+            });
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(titles).containsExactly("100% Java", "Beloved", "Dune", "Dune", "Emma");
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void whenPagingAvailableByYear_thenOnlyBooksWithCopiesAreReturned() {
+        BookPage first = bookService.findBooksPage(BookFilter.available(), BookSort.YEAR, null, 3);
+        BookPage second = bookService.findBooksPage(BookFilter.available(), BookSort.YEAR, first.getNextCursor(), 3);
+
+        assertThat(first.getItems()).extracting(Book::getYear).containsExactly(1965, 1965, 1987);
+        assertThat(second.getItems()).extracting(Book::getYear).containsExactly(2020);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void whenSearching_thenWildcardsAreMatchedLiterally() {
+        BookPage page = bookService.findBooksPage(BookFilter.titleOrAuthorContains("0%"), BookSort.ID, null, 10);
+        assertThat(page.getItems()).extracting(Book::getTitle).containsExactly("100% Java");
+
+        BookPage byAuthor = bookService.findBooksPage(BookFilter.authorContains("HERBERT"), BookSort.ID, null, 10);
+        assertThat(byAuthor.getItems()).hasSize(2);
+    }
+
+    @Test
+    void whenFindingByTitleOrAuthor_thenCaseIsIgnored() {
+        assertThat(bookService.findBooksByTitle("DUNE")).extracting(Book::getIsbn)
+                .containsExactlyInAnyOrder("100", "102");
+        assertThat(bookService.findBooksByAuthor("austen")).extracting(Book::getTitle).containsExactly("Emma");
+        assertThat(bookService.findBooksByTitle("0%")).extracting(Book::getTitle).containsExactly("100% Java");
+    }
+
+    @Test
+    void whenSearchingByRelevance_thenBestMatchesComeFirstAcrossPages() {
+        persist("Frank", "Mary Shelley", "105", 1818, 1);
+        persist("Letters", "Dune Fan", "106", 2001, 1);
+        persist("Children of Dune", "Frank Herbert", "107", 1976, 1);
+        entityManager.flush();
+
+        BookPage first = bookService.findBooksPage(BookFilter.titleOrAuthorContains("dune"), BookSort.RELEVANCE,
+                null, 2);
+        BookPage second = bookService.findBooksPage(BookFilter.titleOrAuthorContains("dune"), BookSort.RELEVANCE,
+                first.getNextCursor(), 2);
+
+        // Exact titles, then a title substring, then an author prefix
+        assertThat(first.getItems()).extracting(Book::getIsbn).containsExactly("100", "102");
+        assertThat(second.getItems()).extracting(Book::getIsbn).containsExactly("107", "106");
+        assertThat(second.hasNext()).isFalse();
+
+        assertThat(bookService.searchBooks("FRANK")).extracting(Book::getIsbn)
+                .containsExactly("105", "100", "102", "107");
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.findBooksPage(BookFilter.all(), BookSort.RELEVANCE, null, 2));
+    }
+
+    @Test
+    void whenCursorDoesNotMatchSort_thenThrowException() {
+        String cursor = bookService.findBooksPage(BookFilter.all(), BookSort.TITLE, null, 1).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.findBooksPage(BookFilter.all(), BookSort.YEAR, cursor, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.findBooksPage(BookFilter.all(), BookSort.ID, "not-a-cursor", 1));
+    }
+
+    @Test
+    void whenLimitIsTooLarge_thenItIsCapped() {
+        BookPage page = bookService.findBooksPage(BookFilter.all(), BookSort.ID, null, 10_000);
+        assertThat(page.getItems()).hasSize(5);
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.findBooksPage(BookFilter.all(), BookSort.ID, null, 0));
+    }
+
+    private void persist(String title, String author, String isbn, int year, int copies) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        book.setYear(year);
+        book.setCopies(copies);
+        entityManager.persist(book);
+    }
+}
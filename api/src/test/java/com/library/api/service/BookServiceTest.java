@@ -7,8 +7,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +28,12 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Spy
+    private BookLookupCache lookupCache = new BookLookupCache(100, Duration.ofMinutes(10));
+
+    @Spy
+    private SearchResultCache searchCache = new SearchResultCache(DataSize.ofMegabytes(1), Duration.ofMinutes(5));
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -41,8 +52,7 @@ class BookServiceTest {
 
     @Test
     void whenSaveBook_thenReturnSavedBook() {
-        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
         Book savedBook = bookService.saveBook(testBook);
 
@@ -50,12 +60,14 @@ class BookServiceTest {
         assertEquals(testBook.getTitle(), savedBook.getTitle());
         assertEquals(testBook.getAuthor(), savedBook.getAuthor());
         assertEquals(testBook.getIsbn(), savedBook.getIsbn());
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).saveAndFlush(any(Book.class));
+        verify(bookRepository, never()).findByIsbn(anyString());
     }
 
     @Test
     void whenSaveBookWithExistingIsbn_thenThrowException() {
-        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.of(testBook));
+        when(bookRepository.saveAndFlush(any(Book.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
 
         assertThrows(IllegalStateException.class, () -> bookService.saveBook(testBook));
     }
@@ -85,13 +97,13 @@ class BookServiceTest {
     @Test
     void whenUpdateBook_thenReturnUpdatedBook() {
         when(bookRepository.findById(anyLong())).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
         Book updatedBook = bookService.updateBook(1L, testBook);
 
         assertNotNull(updatedBook);
         assertEquals(testBook.getTitle(), updatedBook.getTitle());
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).saveAndFlush(any(Book.class));
     }
 
     @Test
@@ -106,7 +118,7 @@ class BookServiceTest {
     @Test
     void whenFindBooksByTitle_thenReturnMatchingBooks() {
         List<Book> books = Arrays.asList(testBook);
-        when(bookRepository.findByTitleContainingIgnoreCase(anyString())).thenReturn(books);
+        when(bookRepository.findAll(any(Specification.class))).thenReturn(books);
 
         List<Book> foundBooks = bookService.findBooksByTitle("Test");
 
@@ -118,7 +130,7 @@ class BookServiceTest {
     @Test
     void whenFindBooksByAuthor_thenReturnMatchingBooks() {
         List<Book> books = Arrays.asList(testBook);
-        when(bookRepository.findByAuthorContainingIgnoreCase(anyString())).thenReturn(books);
+        when(bookRepository.findAll(any(Specification.class))).thenReturn(books);
 
         List<Book> foundBooks = bookService.findBooksByAuthor("Test");
 
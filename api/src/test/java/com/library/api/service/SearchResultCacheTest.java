@@ -0,0 +1,151 @@
+package com.library.api.service;
+
+import com.library.api.model.Book;
+import com.library.api.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private SearchResultCache searchCache;
+    private BookServiceImpl bookService;
+    private int queries;
+
+    @BeforeEach
+    void setUp() {
+        searchCache = new SearchResultCache(DataSize.ofMegabytes(1), Duration.ofMinutes(5));
+        bookService = new BookServiceImpl(bookRepository, null, new BookLookupCache(100, Duration.ofMinutes(10)),
+                searchCache);
+    }
+
+    @Test
+    void repeatedSearchesAreAnsweredFromMemory() {
+        BookFilter filter = BookFilter.titleContains("Java");
+
+        BookPage first = searchCache.get(filter, BookSort.TITLE, null, 20, this::query);
+        BookPage second = searchCache.get(filter, BookSort.TITLE, null, 20, this::query);
+
+        assertEquals(1, queries);
+        assertEquals("Java 1", second.getItems().get(0).getTitle());
+        assertEquals(first.getNextCursor(), second.getNextCursor());
+    }
+
+    @Test
+    void queriesDifferingOnlyInCaseShareAnEntry() {
+        searchCache.get(BookFilter.titleOrAuthorContains("Java"), BookSort.RELEVANCE, null, 20, this::query);
+        searchCache.get(BookFilter.titleOrAuthorContains("JAVA"), BookSort.RELEVANCE, null, 20, this::query);
+        searchCache.get(BookFilter.titleOrAuthorContains("java"), BookSort.RELEVANCE, "cursor", 20, this::query);
+        searchCache.get(BookFilter.authorContains("java"), BookSort.RELEVANCE, null, 20, this::query);
+
+        // Only a different cursor or filter type needs its own query
+        assertEquals(3, queries);
+    }
+
+    @Test
+    void listingsAreNotCached() {
+        searchCache.get(BookFilter.all(), BookSort.ID, null, 20, this::query);
+        searchCache.get(BookFilter.all(), BookSort.ID, null, 20, this::query);
+
+        assertEquals(2, queries);
+    }
+
+    @Test
+    void writesMakeCachedPagesStale() {
+        Book book = book(1L, "Java 1");
+        when(bookRepository.findByIsbn(book.getIsbn())).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        BookFilter filter = BookFilter.year(2020);
+
+        searchCache.get(filter, BookSort.ID, null, 20, this::query);
+        bookService.updateBookCopies(book.getIsbn(), 3);
+        searchCache.get(filter, BookSort.ID, null, 20, this::query);
+        searchCache.get(filter, BookSort.ID, null, 20, this::query);
+
+        assertEquals(2, queries);
+    }
+
+    @Test
+    void callersCannotChangeTheCachedPage() {
+        BookFilter filter = BookFilter.titleContains("Java");
+
+        searchCache.get(filter, BookSort.ID, null, 20, this::query).getItems().get(0).setTitle("Changed");
+        BookPage cached = searchCache.get(filter, BookSort.ID, null, 20, this::query);
+        cached.getItems().get(0).setTitle("Changed");
+
+        assertEquals("Java 1", searchCache.get(filter, BookSort.ID, null, 20, this::query)
+                .getItems().get(0).getTitle());
+    }
+
+    @Test
+    void memoryBudgetBoundsTheCache() {
+        searchCache = new SearchResultCache(DataSize.ofKilobytes(4), Duration.ofMinutes(5));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        searchCache.bindTo(registry);
+
+        // Each page of 20 books is estimated at about 3KB
+        for (int i = 0; i < 10; i++) {
+            searchCache.get(BookFilter.titleContains("Java " + i), BookSort.ID, null, 20, this::query);
+            searchCache.cleanUp();
+        }
+        for (int i = 0; i < 10; i++) {
+            searchCache.get(BookFilter.titleContains("Java " + i), BookSort.ID, null, 20, this::query);
+        }
+
+        searchCache.cleanUp();
+        assertTrue(queries > 10);
+        assertTrue(registry.get("cache.evictions").tag("cache", "books.search").functionCounter().count() > 0);
+    }
+
+    @Test
+    void hitsAndMissesArePublished() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        searchCache.bindTo(registry);
+        BookFilter filter = BookFilter.titleContains("Java");
+
+        searchCache.get(filter, BookSort.ID, null, 20, this::query);
+        searchCache.get(filter, BookSort.ID, null, 20, this::query);
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "books.search", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "books.search", "result", "miss")
+                .functionCounter().count());
+    }
+
+    private BookPage query() {
+        queries++;
+        List<Book> items = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            items.add(book((long) i, "Java " + i));
+        }
+        return new BookPage(items, "next");
+    }
+
+    private static Book book(Long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("Test Author");
+        book.setIsbn("97800000000" + id);
+        book.setYear(2020);
+        book.setCopies(5);
+        return book;
+    }
+}
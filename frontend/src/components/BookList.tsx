@@ -24,9 +24,13 @@ import ErrorAlert from './ErrorAlert';
 import AddBookForm from './AddBookForm';
 import EditBookForm from './EditBookForm';
 
+const PAGE_SIZE = 24;
+
 const BookList: React.FC = () => {
   const [books, setBooks] = useState<Book[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState<boolean>(true);
+  const [loadingMore, setLoadingMore] = useState<boolean>(false);
   const [error, setError] = useState<string | null>(null);
   const { execute: deleteBookExecute, error: deleteError, reset: resetDelete } = useApi<void>();
   const [isAddModalOpen, setIsAddModalOpen] = useState(false);
@@ -39,8 +43,9 @@ const BookList: React.FC = () => {
     setLoading(true);
     setError(null);
     try {
-      const data = await bookService.getAllBooks();
-      setBooks(data);
+      const page = await bookService.getBooksPage({ limit: PAGE_SIZE });
+      setBooks(page.items);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       console.error('Error fetching books:', err);
       setError('Failed to fetch books.');
@@ -49,6 +54,24 @@ const BookList: React.FC = () => {
     }
   }, []);
 
+  const fetchMoreBooks = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    setLoadingMore(true);
+    setError(null);
+    try {
+      const page = await bookService.getBooksPage({ after: nextCursor, limit: PAGE_SIZE });
+      setBooks(prevBooks => [...prevBooks, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      console.error('Error fetching more books:', err);
+      setError('Failed to fetch books.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     fetchBooks();
   }, [fetchBooks]);
@@ -91,7 +114,10 @@ const BookList: React.FC = () => {
   const handleAddBookSubmit = async (bookData: Omit<Book, 'id'>) => {
     try {
       const newBook = await bookService.createBook(bookData);
-      setBooks(prevBooks => [...prevBooks, newBook]);
+      // Books are listed by id, so a new book only belongs on screen once the last page is loaded
+      if (!nextCursor) {
+        setBooks(prevBooks => [...prevBooks, newBook]);
+      }
       setSnackbarMessage('Book added successfully!');
       setSnackbarOpen(true);
       handleCloseAddModal();
@@ -226,6 +252,19 @@ const BookList: React.FC = () => {
         </Grid>
       )}
 
+      {nextCursor && (
+        <Box display="flex" justifyContent="center" mt={4}>
+          <Button
+            variant="outlined"
+            onClick={fetchMoreBooks}
+            disabled={loadingMore}
+            sx={{ textTransform: 'none', borderRadius: 2, px: 3 }}
+          >
+            {loadingMore ? <CircularProgress size={20} /> : 'Load more'}
+          </Button>
+        </Box>
+      )}
+
       {/* Add Book Modal */}
       <Dialog open={isAddModalOpen} onClose={handleCloseAddModal} maxWidth="sm" fullWidth>
         <DialogTitle>Add New Book</DialogTitle>
@@ -39,7 +39,7 @@ describe('BookList', () => {
   beforeEach(() => {
     // Reset all mocks before each test
     jest.clearAllMocks();
-    (bookService.getAllBooks as jest.Mock).mockResolvedValue(mockBooks);
+    (bookService.getBooksPage as jest.Mock).mockResolvedValue({ items: mockBooks, nextCursor: null });
     (bookService.deleteBook as jest.Mock).mockResolvedValue(undefined);
     (bookService.createBook as jest.Mock).mockResolvedValue({ id: 3, title: 'New Book', author: 'New Author', year: 2024, isbn: '789', copies: 1 });
     (bookService.updateBook as jest.Mock).mockResolvedValue({ ...mockBooks[0], title: 'Updated Book' });
@@ -190,7 +190,7 @@ describe('BookList', () => {
 
   it('handles error state', async () => {
     const errorMessage = 'Failed to fetch books';
-    (bookService.getAllBooks as jest.Mock).mockRejectedValue(new Error(errorMessage));
+    (bookService.getBooksPage as jest.Mock).mockRejectedValue(new Error(errorMessage));
 
     renderComponent();
 
@@ -199,4 +199,25 @@ describe('BookList', () => {
       expect(screen.getByRole('alert')).toHaveTextContent(errorMessage);
     });
   });
+
+  it('loads the next page on demand', async () => {
+    (bookService.getBooksPage as jest.Mock)
+      .mockResolvedValueOnce({ items: [mockBooks[0]], nextCursor: 'cursor-1' })
+      .mockResolvedValueOnce({ items: [mockBooks[1]], nextCursor: null });
+
+    renderComponent();
+
+    await waitFor(() => {
+      expect(screen.getByText('Book 1')).toBeInTheDocument();
+    });
+    expect(screen.queryByText('Book 2')).not.toBeInTheDocument();
+
+    fireEvent.click(screen.getByText('Load more'));
+
+    await waitFor(() => {
+      expect(screen.getByText('Book 2')).toBeInTheDocument();
+    });
+    expect(bookService.getBooksPage).toHaveBeenLastCalledWith({ after: 'cursor-1', limit: 24 });
+    expect(screen.queryByText('Load more')).not.toBeInTheDocument();
+  });
 }); 
\ No newline at end of file
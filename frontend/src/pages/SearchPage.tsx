@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { bookService, Book } from '../services/bookService';
 import { useDebounce } from '../hooks/useDebounce';
 import { 
@@ -12,39 +12,81 @@ import {
   Box,
   InputAdornment,
   Paper,
-  IconButton
+  IconButton,
+  Button
 } from '@mui/material';
 import SearchIcon from '@mui/icons-material/Search';
 import BookIcon from '@mui/icons-material/Book';
 import EditIcon from '@mui/icons-material/Edit';
 
+const PAGE_SIZE = 24;
+
 const SearchPage: React.FC = () => {
   const [searchQuery, setSearchQuery] = useState('');
   const [searchResults, setSearchResults] = useState<Book[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [isLoading, setIsLoading] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const debouncedSearchQuery = useDebounce(searchQuery, 300);
+  // Query the shown results belong to, so a late "load more" page is dropped
+  const activeQuery = useRef('');
 
   useEffect(() => {
+    activeQuery.current = debouncedSearchQuery;
+    // Ignore the response if the query changed while it was in flight
+    let cancelled = false;
     const performSearch = async () => {
+      setNextCursor(null);
       if (debouncedSearchQuery.trim()) {
         setIsLoading(true);
         try {
-          const results = await bookService.searchBooks(debouncedSearchQuery);
-          setSearchResults(results);
+          const page = await bookService.searchBooksPage(debouncedSearchQuery, { limit: PAGE_SIZE });
+          if (!cancelled) {
+            setSearchResults(page.items);
+            setNextCursor(page.nextCursor);
+          }
         } catch (error) {
           console.error('Error searching books:', error);
-          setSearchResults([]);
+          if (!cancelled) {
+            setSearchResults([]);
+          }
         } finally {
-          setIsLoading(false);
+          if (!cancelled) {
+            setIsLoading(false);
+          }
         }
       } else {
         setSearchResults([]);
+        setIsLoading(false);
       }
     };
 
     performSearch();
+    return () => {
+      cancelled = true;
+    };
   }, [debouncedSearchQuery]);
 
+  const loadMoreResults = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    const query = debouncedSearchQuery;
+    setLoadingMore(true);
+    try {
+      const page = await bookService.searchBooksPage(query, { after: nextCursor, limit: PAGE_SIZE });
+      if (activeQuery.current !== query) {
+        return;
+      }
+      setSearchResults(prevResults => [...prevResults, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('Error loading more results:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   return (
     <Container maxWidth="lg" sx={{ py: 4 }}>
       <Typography variant="h3" component="h1" gutterBottom align="center" sx={{ mb: 4 }}>
@@ -128,6 +170,19 @@ const SearchPage: React.FC = () => {
         </Grid>
       )}
 
+      {!isLoading && nextCursor && (
+        <Box display="flex" justifyContent="center" mt={4}>
+          <Button
+            variant="outlined"
+            onClick={loadMoreResults}
+            disabled={loadingMore}
+            sx={{ textTransform: 'none', borderRadius: 2, px: 3 }}
+          >
+            {loadingMore ? <CircularProgress size={20} /> : 'Load more'}
+          </Button>
+        </Box>
+      )}
+
       {!isLoading && searchQuery && searchResults.length === 0 && (
         <Box textAlign="center" py={4}>
           <Typography variant="h6" color="textSecondary">
@@ -1,3 +1,4 @@
+import { AxiosResponse } from 'axios';
 import api from './api';
 
 export interface Book {
@@ -9,11 +10,46 @@ export interface Book {
   copies: number;
 }
 
+export type BookSortKey = 'id' | 'title' | 'author' | 'year';
+
+// Listings are paginated with an opaque cursor: pass nextCursor back as
+// `after` to get the following page; it is null on the last page.
+export interface PageRequest {
+  after?: string | null;
+  limit?: number;
+  sort?: BookSortKey;
+}
+
+export interface BookPage {
+  items: Book[];
+  nextCursor: string | null;
+}
+
+// Axios lower-cases response header names
+const NEXT_CURSOR_HEADER = 'x-next-cursor';
+
+const pageParams = ({ after, limit, sort }: PageRequest = {}) => ({
+  ...(after ? { after } : {}),
+  ...(limit ? { limit } : {}),
+  ...(sort ? { sort } : {}),
+});
+
+const toPage = (response: AxiosResponse<Book[]>): BookPage => ({
+  items: response.data,
+  nextCursor: response.headers?.[NEXT_CURSOR_HEADER] ?? null,
+});
+
 export const bookService = {
-  // Get all books
-  getAllBooks: async (): Promise<Book[]> => {
-    const response = await api.get('/api/books');
-    return response.data;
+  // Get one page of books
+  getBooksPage: async (page?: PageRequest): Promise<BookPage> => {
+    const response = await api.get('/api/books', { params: pageParams(page) });
+    return toPage(response);
+  },
+
+  // Get one page of books with copies available
+  getAvailableBooksPage: async (page?: PageRequest): Promise<BookPage> => {
+    const response = await api.get('/api/books/available', { params: pageParams(page) });
+    return toPage(response);
   },
 
   // Get a single book by ID
@@ -39,9 +75,9 @@ export const bookService = {
     await api.delete(`/api/books/${id}`);
   },
 
-  // Search books
-  searchBooks: async (query: string): Promise<Book[]> => {
-    const response = await api.get(`/api/books/search?query=${encodeURIComponent(query)}`);
-    return response.data;
+  // Search books by title or author, one page at a time
+  searchBooksPage: async (query: string, page?: PageRequest): Promise<BookPage> => {
+    const response = await api.get('/api/books/search', { params: { query, ...pageParams(page) } });
+    return toPage(response);
   }
 }; 
\ No newline at end of file
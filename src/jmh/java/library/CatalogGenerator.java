@@ -0,0 +1,111 @@
+package library;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Builds synthetic catalogs for the benchmarks. The same size and seed
+ * always give the same books, so runs before and after a change measure
+ * the same data.
+ */
+final class CatalogGenerator {
+
+    static final long DEFAULT_SEED = 20240101L;
+
+    private static final String[] ADJECTIVES = { "Silent", "Hidden", "Broken", "Golden", "Last", "Lost", "Red",
+            "Endless", "Distant", "Secret", "Burning", "Frozen", "Quiet", "Wild", "Forgotten", "Bright" };
+    private static final String[] NOUNS = { "River", "Garden", "City", "Mountain", "Letter", "Winter", "Island",
+            "Empire", "Shadow", "Harbor", "Forest", "Journey", "Kingdom", "Mirror", "Voyage", "Storm" };
+    private static final String[] FIRST_NAMES = { "Ana", "Jorge", "Lucía", "Pedro", "María", "Julio", "Elena",
+            "Carlos", "Isabel", "Miguel", "Laura", "Gabriel", "Sofía", "Diego", "Carmen", "Octavio" };
+    private static final String[] LAST_NAMES = { "García", "Borges", "Cortázar", "Rulfo", "Paz", "Allende",
+            "Neruda", "Mistral", "Fuentes", "Onetti", "Storni", "Arlt", "Bolaño", "Lispector", "Vallejo", "Darío" };
+    private static final String[] FORMATS = { "PDF", "EPUB", "MOBI" };
+
+    private CatalogGenerator() {
+    }
+
+    /**
+     * @param count Number of books
+     * @param seed  Seed for titles, authors, copies and years
+     * @return Books with unique ISBNs; about one in ten is an EBook
+     */
+    static List<Book> books(int count, long seed) {
+        Random random = new Random(seed);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " " + i;
+            String author = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String isbn = String.format("978%010d", i);
+            int copies = 1 + random.nextInt(10);
+            int year = 1850 + random.nextInt(175);
+            if (random.nextInt(10) == 0) {
+                double fileSize = Math.round((0.5 + random.nextDouble() * 20) * 100) / 100.0;
+                books.add(new EBook(title, author, isbn, copies, year, fileSize,
+                        FORMATS[random.nextInt(FORMATS.length)]));
+            } else {
+                books.add(new Book(title, author, isbn, copies, year));
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Writes a books file in the pipe-delimited format
+     *
+     * @param file  File to create or overwrite
+     * @param count Number of books
+     * @param seed  Seed passed to books
+     * @return The file
+     */
+    static Path writeBooksFile(Path file, int count, long seed) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Book book : books(count, seed)) {
+                writer.write(LibraryManagementSystem.formatBookLine(book));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Settings for a benchmark library in the given directory: books.txt and
+     * an empty patrons.txt, lending messages only counted, and saves
+     * deferred so that borrow and return do not rewrite the file
+     *
+     * @param dir   Directory to hold the files
+     * @param count Number of books
+     * @return Settings pointing at the generated files
+     */
+    static LibrarySettings settings(Path dir, int count) throws IOException {
+        Path booksFile = writeBooksFile(dir.resolve("books.txt"), count, DEFAULT_SEED);
+        Path patronsFile = Files.write(dir.resolve("patrons.txt"), new byte[0]);
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(patronsFile.toString());
+        settings.setFlushIntervalMillis(3_600_000);
+        settings.setFlushMaxMutations(Integer.MAX_VALUE);
+        settings.setLogMode(EventLog.Mode.SUMMARY);
+        return settings;
+    }
+
+    /**
+     * Deletes a directory created for a benchmark, ignoring errors
+     */
+    static void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            // Left for the OS to clean up
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package library;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * borrowBook followed by returnBook of a random title, with one, four and
+ * all available threads; pass -t to try other counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LendingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({ "1000", "100000", "1000000" })
+        int books;
+
+        Path dir;
+        LibraryManagementSystem library;
+        String[] titles;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("lending-benchmark");
+            library = new LibraryManagementSystem(CatalogGenerator.settings(dir, books));
+            List<Book> inventory = library.getBooks();
+            titles = new String[inventory.size()];
+            for (int i = 0; i < titles.length; i++) {
+                titles[i] = inventory.get(i).getTitle();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            library.close();
+            CatalogGenerator.deleteQuietly(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Borrower {
+        private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+        final int patronId = NEXT_ID.incrementAndGet();
+        // Cheap per-thread xorshift so the benchmark does not measure Random
+        private int seed = patronId * 0x9E3779B9 | 1;
+
+        int nextIndex(int bound) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return (seed & Integer.MAX_VALUE) % bound;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean borrowAndReturn(Catalog catalog, Borrower borrower) {
+        return lend(catalog, borrower);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean borrowAndReturn4Threads(Catalog catalog, Borrower borrower) {
+        return lend(catalog, borrower);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean borrowAndReturnAllThreads(Catalog catalog, Borrower borrower) {
+        return lend(catalog, borrower);
+    }
+
+    private static boolean lend(Catalog catalog, Borrower borrower) {
+        String title = catalog.titles[borrower.nextIndex(catalog.titles.length)];
+        LibraryManagementSystem library = catalog.library;
+        return library.borrowBook(title, borrower.patronId) && library.returnBook(title, borrower.patronId);
+    }
+}
@@ -0,0 +1,82 @@
+package library;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading the books file (building the library) and saving it back
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    int books;
+
+    @Param({ "TEXT", "BINARY" })
+    LibrarySettings.BooksFormat format;
+
+    private Path dir;
+    private LibrarySettings settings;
+    private LibraryManagementSystem library;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Every load prints a greeting; keep it out of the results
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        dir = Files.createTempDirectory("persistence-benchmark");
+        settings = CatalogGenerator.settings(dir, books);
+        settings.setBooksFormat(format);
+        library = new LibraryManagementSystem(settings);
+        // Rewrite the generated file in the format under test
+        library.saveBooksToFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        CatalogGenerator.deleteQuietly(dir);
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public int loadBooksFromFile() {
+        LibraryManagementSystem loaded = new LibraryManagementSystem(settings);
+        int size = loaded.getBooks().size();
+        loaded.close();
+        return size;
+    }
+
+    @Benchmark
+    public void saveBooksToFile() {
+        library.saveBooksToFile();
+    }
+}
@@ -0,0 +1,83 @@
+package library;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches and sorted views over a generated catalog
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    int books;
+
+    // Words the generator uses, so every search has matches
+    @Param({ "Borges" })
+    String author;
+
+    @Param({ "river" })
+    String titleWord;
+
+    private Path dir;
+    private LibraryManagementSystem library;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("search-benchmark");
+        library = new LibraryManagementSystem(CatalogGenerator.settings(dir, books));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        CatalogGenerator.deleteQuietly(dir);
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthor() {
+        return library.findBooksByAuthor(author);
+    }
+
+    @Benchmark
+    public List<Book> findBooksByTitleContaining() {
+        return library.findBooksByTitleContaining(titleWord);
+    }
+
+    @Benchmark
+    public List<Book> sortBooksByTitle() {
+        return library.sortBooksByTitle();
+    }
+
+    @Benchmark
+    public List<Book> sortBooksByYearAscending() {
+        return library.sortBooksByYearAscending();
+    }
+
+    @Benchmark
+    public List<Book> sortBooksByYearDescending() {
+        return library.sortBooksByYearDescending();
+    }
+}
@@ -0,0 +1,75 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The books that currently have at least one copy available.
+ * Kept up to date as copy counts cross zero, so picking a random available
+ * book is O(1) instead of filtering the whole catalog.
+ */
+public class AvailableBooks {
+
+    private final List<Book> books = new ArrayList<>();
+    // Position of each book in the list, so removal can swap with the last element
+    private final Map<Book, Integer> positions = new IdentityHashMap<>();
+
+    /**
+     * Adds or removes the book according to its current copy count.
+     * Call after any change that may have moved the count to or from zero;
+     * the last refresh always sees the latest count, so concurrent changes
+     * cannot leave the view out of date.
+     *
+     * @param book The book whose count changed
+     */
+    public synchronized void refresh(Book book) {
+        if (book.getCopies() > 0) {
+            if (!positions.containsKey(book)) {
+                positions.put(book, books.size());
+                books.add(book);
+            }
+        } else {
+            remove(book);
+        }
+    }
+
+    /**
+     * Drops the book regardless of its copy count, e.g. when it leaves the
+     * catalog
+     *
+     * @param book The book to drop
+     */
+    public synchronized void remove(Book book) {
+        Integer index = positions.remove(book);
+        if (index == null) {
+            return;
+        }
+        Book last = books.remove(books.size() - 1);
+        if (last != book) {
+            books.set(index, last);
+            positions.put(last, index);
+        }
+    }
+
+    /**
+     * @param random Source of randomness
+     * @return A random available book, or null if none is available
+     */
+    public synchronized Book pickRandom(Random random) {
+        if (books.isEmpty()) {
+            return null;
+        }
+        return books.get(random.nextInt(books.size()));
+    }
+
+    public synchronized int size() {
+        return books.size();
+    }
+
+    public synchronized boolean contains(Book book) {
+        return positions.containsKey(book);
+    }
+}
@@ -0,0 +1,380 @@
+package library;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of the catalog, an alternative to the
+ * pipe-delimited books file.
+ *
+ * <pre>
+ * header:  "LBK1" magic, version byte, flags byte, [journal sequence],
+ *          string dictionary (authors and ebook formats), CRC32
+ * records: count, then per book: type byte, title, author index, isbn,
+ *          copies, year, [file size, format index]
+ * footer:  record count, CRC32 of the records, "LBKE" magic
+ * </pre>
+ *
+ * Counts, indexes and string lengths are unsigned varints; copies, years and
+ * the journal sequence are zig-zag varints; strings are UTF-8. The main
+ * method converts between this format and the text format.
+ */
+public class BinaryCatalogFile {
+
+    static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'L', 'B', 'K', '1' };
+    private static final byte[] END_MAGIC = { 'L', 'B', 'K', 'E' };
+
+    private static final int FLAG_JOURNAL = 1;
+    private static final int TYPE_BOOK = 0;
+    private static final int TYPE_EBOOK = 1;
+
+    private BinaryCatalogFile() {
+    }
+
+    /**
+     * @param file The books file
+     * @return True if the file starts with the binary snapshot magic
+     */
+    public static boolean isBinary(Path file) {
+        byte[] start = new byte[MAGIC.length];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read = 0;
+            while (read < start.length) {
+                int n = in.read(start, read, start.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (start[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the books as a binary snapshot
+     *
+     * @param file            Target file, replaced if it exists
+     * @param books           Books in catalog order
+     * @param journalSequence Last journal sequence the snapshot contains, or
+     *                        null outside journal mode
+     */
+    public static void write(Path file, List<Book> books, Long journalSequence) throws IOException {
+        // Dictionary of the strings that repeat across books
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (Book b : books) {
+            intern(String.valueOf(b.getAuthor()), ids, dictionary);
+            if (b instanceof EBook) {
+                intern(String.valueOf(((EBook) b).getFormat()), ids, dictionary);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(journalSequence != null ? FLAG_JOURNAL : 0);
+            if (journalSequence != null) {
+                writeSignedVarLong(out, journalSequence);
+            }
+            writeVarInt(out, dictionary.size());
+            for (String s : dictionary) {
+                writeString(out, s);
+            }
+            out.writeInt((int) crc.getValue());
+
+            crc.reset();
+            writeVarInt(out, books.size());
+            for (Book b : books) {
+                boolean ebook = b instanceof EBook;
+                out.writeByte(ebook ? TYPE_EBOOK : TYPE_BOOK);
+                writeString(out, String.valueOf(b.getTitle()));
+                writeVarInt(out, ids.get(String.valueOf(b.getAuthor())));
+                writeString(out, String.valueOf(b.getIsbn()));
+                writeSignedVarLong(out, b.getCopies());
+                writeSignedVarLong(out, b.getYear());
+                if (ebook) {
+                    EBook e = (EBook) b;
+                    out.writeDouble(e.getFileSize());
+                    writeVarInt(out, ids.get(String.valueOf(e.getFormat())));
+                }
+            }
+            long recordsCrc = crc.getValue();
+            out.writeInt(books.size());
+            out.writeInt((int) recordsCrc);
+            out.write(END_MAGIC);
+        }
+    }
+
+    /**
+     * Reads a binary snapshot. Nothing is delivered unless both checksums
+     * match, so a damaged file never loads half a catalog.
+     *
+     * @param file    The books file
+     * @param books   Receives each book in catalog order
+     * @param journal Receives the journal sequence, if the snapshot has one
+     * @throws IOException If the file cannot be read, has an unknown version,
+     *                     a count or length that does not fit in the file,
+     *                     or fails its checksums
+     */
+    public static void read(Path file, Consumer<Book> books, LongConsumer journal) throws IOException {
+        CRC32 crc = new CRC32();
+        List<Book> result;
+        Long sequence = null;
+        long size = Files.size(file);
+        try (CountingInputStream counter = new CountingInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc));
+                DataInputStream in = new DataInputStream(counter)) {
+            expectMagic(in, MAGIC, file);
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            int flags = in.readUnsignedByte();
+            if ((flags & FLAG_JOURNAL) != 0) {
+                sequence = readSignedVarLong(in);
+            }
+            // Every entry takes at least one byte, so a damaged count cannot
+            // allocate more than the file holds
+            String[] dictionary = new String[checkedLength(readVarInt(in), size - counter.count)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(in, size - counter.count);
+            }
+            expectChecksum(in, crc, "header", file);
+
+            crc.reset();
+            int count = checkedLength(readVarInt(in), size - counter.count);
+            result = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                int type = in.readUnsignedByte();
+                String title = readString(in, size - counter.count);
+                String author = lookup(dictionary, readVarInt(in), file);
+                String isbn = readString(in, size - counter.count);
+                int copies = (int) readSignedVarLong(in);
+                int year = (int) readSignedVarLong(in);
+                if (type == TYPE_EBOOK) {
+                    double fileSize = in.readDouble();
+                    String format = lookup(dictionary, readVarInt(in), file);
+                    result.add(new EBook(title, author, isbn, copies, year, fileSize, format));
+                } else if (type == TYPE_BOOK) {
+                    result.add(new Book(title, author, isbn, copies, year));
+                } else {
+                    throw new IOException("Unknown record type " + type + " in " + file);
+                }
+            }
+            long recordsCrc = crc.getValue();
+            if (in.readInt() != count || in.readInt() != (int) recordsCrc) {
+                throw new IOException("Checksum mismatch in records of " + file);
+            }
+            expectMagic(in, END_MAGIC, file);
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot " + file, e);
+        }
+        if (sequence != null) {
+            journal.accept(sequence);
+        }
+        result.forEach(books);
+    }
+
+    /**
+     * Converts a text books file to a binary snapshot
+     *
+     * @return Number of books converted
+     */
+    public static int toBinary(Path textFile, Path binaryFile) throws IOException {
+        List<Book> books = new ArrayList<>();
+        Long[] sequence = { null };
+        new CatalogFileParser().parseBooks(textFile, books::add, s -> sequence[0] = s);
+        write(binaryFile, books, sequence[0]);
+        return books.size();
+    }
+
+    /**
+     * Converts a binary snapshot back to the text format
+     *
+     * @return Number of books converted
+     */
+    public static int toText(Path binaryFile, Path textFile) throws IOException {
+        List<String> lines = new ArrayList<>();
+        int[] count = { 0 };
+        // The sequence is delivered before the books, so the marker stays the first line
+        read(binaryFile, b -> {
+            lines.add(LibraryManagementSystem.formatBookLine(b));
+            count[0]++;
+        }, s -> lines.add(LibraryManagementSystem.JOURNAL_MARKER + s));
+        Files.write(textFile, lines, CatalogFileParser.CHARSET);
+        return count[0];
+    }
+
+    /**
+     * Converter: {@code to-binary <books.txt> <books.bin>} or
+     * {@code to-text <books.bin> <books.txt>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !("to-binary".equals(args[0]) || "to-text".equals(args[0]))) {
+            System.out.println("Uso: BinaryCatalogFile to-binary|to-text <origen> <destino>");
+            return;
+        }
+        Path source = Paths.get(args[1]);
+        Path target = Paths.get(args[2]);
+        int count = "to-binary".equals(args[0]) ? toBinary(source, target) : toText(source, target);
+        System.out.println("Se convirtieron " + count + " libros de " + source + " a " + target + ".");
+    }
+
+    private static void intern(String s, Map<String, Integer> ids, List<String> dictionary) {
+        if (!ids.containsKey(s)) {
+            ids.put(s, dictionary.size());
+            dictionary.add(s);
+        }
+    }
+
+    private static String lookup(String[] dictionary, int index, Path file) throws IOException {
+        if (index < 0 || index >= dictionary.length) {
+            throw new IOException("Bad dictionary index " + index + " in " + file);
+        }
+        return dictionary[index];
+    }
+
+    private static void expectMagic(DataInputStream in, byte[] magic, Path file) throws IOException {
+        for (byte b : magic) {
+            if (in.readByte() != b) {
+                throw new IOException("Not a binary books snapshot: " + file);
+            }
+        }
+    }
+
+    private static void expectChecksum(DataInputStream in, CRC32 crc, String part, Path file) throws IOException {
+        long expected = crc.getValue();
+        if (in.readInt() != (int) expected) {
+            throw new IOException("Checksum mismatch in " + part + " of " + file);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long remaining) throws IOException {
+        byte[] bytes = new byte[checkedLength(readVarInt(in), remaining)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Rejects a negative count or length, or one larger than the bytes left
+    private static int checkedLength(int length, long remaining) throws IOException {
+        if (length < 0 || length > remaining) {
+            throw new IOException("Malformed length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Counts the bytes read, so lengths can be checked against what is left
+     * of the file before anything is allocated for them
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeSignedVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    static long readSignedVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -1,10 +1,16 @@
 package library;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 public class Book {
+    // Updates copies in place without a lock or a per-book AtomicInteger
+    private static final AtomicIntegerFieldUpdater<Book> COPIES =
+            AtomicIntegerFieldUpdater.newUpdater(Book.class, "copies");
+
     private String title;
     private String author;
     private String isbn;
-    private int copies;
+    private volatile int copies;
     private int year;
 
     public Book(String title, String author, String isbn, int copies, int year) {
@@ -51,6 +57,33 @@ public class Book {
         this.copies = newCopies;
     }
 
+    /**
+     * Takes one available copy, if there is any.
+     * Safe to call from several threads at once; the count never goes below zero.
+     *
+     * @return True if a copy was taken
+     */
+    public boolean tryAcquireCopy() {
+        while (true) {
+            int current = copies;
+            if (current <= 0) {
+                return false;
+            }
+            if (COPIES.compareAndSet(this, current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back one copy taken with tryAcquireCopy
+     *
+     * @return The number of available copies after the release
+     */
+    public int releaseCopy() {
+        return COPIES.incrementAndGet(this);
+    }
+
     public int getYear() {
         return year;
     }
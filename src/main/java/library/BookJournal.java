@@ -0,0 +1,336 @@
+package library;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only journal of copy-count changes.
+ * Each record is a single line in the format: sequence|isbn|delta
+ * Sequence numbers only grow, so a snapshot of the books file can record the
+ * last sequence it contains and replay can skip everything up to it.
+ */
+public class BookJournal implements Closeable {
+
+    /**
+     * When appended records are forced to disk
+     */
+    public enum SyncPolicy {
+        ALWAYS, // fsync every record before returning
+        GROUP, // concurrent writers share a single fsync (group commit)
+        NONE // leave flushing to the operating system
+    }
+
+    private final Path file;
+    private final SyncPolicy syncPolicy;
+    private FileChannel channel;
+
+    // Guarded by this
+    private long lastSequence;
+    private int pendingRecords;
+    // Damaged lines between valid records, found when the journal was opened
+    private int damagedRecords;
+
+    // Group commit state, guarded by syncLock
+    private final Object syncLock = new Object();
+    private long durableSequence;
+
+    public BookJournal(Path file, SyncPolicy syncPolicy) throws IOException {
+        this.file = file;
+        this.syncPolicy = syncPolicy;
+        // Pick up where the previous run left off
+        long validBytes = scanRecords();
+        this.durableSequence = lastSequence;
+        this.channel = openChannel(file);
+        if (channel.size() > validBytes) {
+            // Drop a torn last record so the next append starts on a clean line
+            channel.truncate(validBytes);
+            channel.position(validBytes);
+        }
+    }
+
+    /**
+     * Writes a copy-count change to the journal.
+     * The record reaches the operating system before this returns; call
+     * {@link #sync(long)} with the returned sequence to wait for the disk.
+     *
+     * @param isbn  ISBN of the book that changed
+     * @param delta Change in available copies (e.g. -1 for a loan)
+     * @return Sequence number assigned to the record
+     * @throws IOException If the record could not be written
+     */
+    public synchronized long append(String isbn, int delta) throws IOException {
+        long sequence = lastSequence + 1;
+        String line = sequence + "|" + isbn + "|" + delta + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        lastSequence = sequence;
+        pendingRecords++;
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+            channel.force(false);
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits until the record with the given sequence is on disk, according to
+     * the sync policy. With GROUP, the first waiting thread forces the file and
+     * every record written up to that point becomes durable with it.
+     *
+     * @param sequence Sequence returned by {@link #append(String, int)}
+     * @throws IOException If the journal could not be forced
+     */
+    public void sync(long sequence) throws IOException {
+        if (syncPolicy != SyncPolicy.GROUP || sequence <= 0) {
+            return;
+        }
+        // Writers queue here while one of them forces; when their turn comes
+        // the force that just finished usually covers their record as well
+        synchronized (syncLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            forceLocked();
+        }
+    }
+
+    /**
+     * Forces every record written so far to disk, whatever the sync policy
+     *
+     * @throws IOException If the journal could not be forced
+     */
+    public void force() throws IOException {
+        synchronized (syncLock) {
+            forceLocked();
+        }
+    }
+
+    // Caller holds syncLock
+    private void forceLocked() throws IOException {
+        long target;
+        FileChannel toForce;
+        synchronized (this) {
+            target = lastSequence;
+            toForce = channel;
+        }
+        toForce.force(false);
+        durableSequence = Math.max(durableSequence, target);
+    }
+
+    /**
+     * Calls the consumer for every record with a sequence greater than the
+     * given one, in journal order. Damaged lines are skipped.
+     *
+     * @param afterSequence Last sequence already contained in the snapshot
+     * @param consumer      Receives the ISBN and copy delta of each record
+     * @return Number of records replayed
+     * @throws IOException If the journal cannot be read
+     */
+    public synchronized int replay(long afterSequence, BiConsumer<String, Integer> consumer) throws IOException {
+        int replayed = 0;
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                long sequence = parseSequence(line);
+                if (sequence > afterSequence) {
+                    String[] parts = line.split("\\|");
+                    consumer.accept(parts[1], Integer.parseInt(parts[2]));
+                    replayed++;
+                }
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Ensures future records are numbered after the given sequence. Used when
+     * the snapshot is newer than the (already truncated) journal.
+     *
+     * @param sequence Last sequence known to be in use
+     */
+    public void advanceTo(long sequence) {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (sequence > lastSequence) {
+                    lastSequence = sequence;
+                    durableSequence = Math.max(durableSequence, sequence);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops all records up to and including the given sequence, after a
+     * snapshot containing them has been written. Records appended while the
+     * snapshot was being written are kept.
+     *
+     * @param sequence Last sequence contained in the new snapshot
+     * @throws IOException If the journal could not be rewritten
+     */
+    public void truncateThrough(long sequence) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (sequence >= lastSequence) {
+                    channel.truncate(0);
+                    channel.force(true);
+                    pendingRecords = 0;
+                    return;
+                }
+                // Keep the tail that is not in the snapshot yet
+                List<String> lines = readLinesAfter(sequence);
+                Path tmp = Paths.get(file.toString() + ".tmp");
+                Files.write(tmp, lines, StandardCharsets.UTF_8);
+                try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    fc.force(true);
+                }
+                channel.close();
+                moveReplacing(tmp, file);
+                channel = openChannel(file);
+                channel.force(true);
+                pendingRecords = lines.size();
+            }
+        }
+    }
+
+    /**
+     * @return Sequence of the most recent record
+     */
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return Damaged lines that were found between valid records when the
+     *         journal was opened; replay skips them
+     */
+    public synchronized int damagedRecords() {
+        return damagedRecords;
+    }
+
+    /**
+     * @return Records currently held in the journal file
+     */
+    public synchronized int pendingRecords() {
+        return pendingRecords;
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Moves a file into place atomically when the file system allows it
+     */
+    static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        fc.position(fc.size());
+        return fc;
+    }
+
+    /**
+     * Counts the complete records and notes the highest sequence. A record
+     * only counts once its newline is on disk: a last line without one may
+     * have lost digits (e.g. a delta of 10 torn to 1), so it is treated as
+     * torn, as are damaged lines after the last valid record. A damaged line
+     * followed by valid records is only counted, so the records after it
+     * are kept.
+     *
+     * @return Length in bytes up to the end of the last valid record
+     */
+    private long scanRecords() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long validBytes = 0;
+        long offset = 0;
+        int damagedSinceValid = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                long sequence = parseSequence(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                line.reset();
+                if (sequence < 0) {
+                    damagedSinceValid++;
+                    continue;
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+                pendingRecords++;
+                damagedRecords += damagedSinceValid;
+                damagedSinceValid = 0;
+                validBytes = offset;
+            }
+        }
+        return validBytes;
+    }
+
+    private List<String> readLinesAfter(long afterSequence) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return lines;
+        }
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (parseSequence(line) > afterSequence) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @return Sequence of the record, or -1 if the line is not a valid record
+     */
+    private static long parseSequence(String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length != 3) {
+            return -1;
+        }
+        try {
+            Integer.parseInt(parts[2]);
+            return Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
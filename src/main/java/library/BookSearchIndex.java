@@ -0,0 +1,248 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Full-text index over book titles and authors.
+ * Every lower-cased title and author is split into word tokens and into
+ * trigrams; a substring query only looks at the books that contain all of
+ * its trigrams, so its cost follows the number of candidates rather than the
+ * size of the catalog. Results are ranked by how well they match.
+ * Not thread-safe: callers guard it with the catalog lock.
+ */
+public class BookSearchIndex {
+
+    /**
+     * Which part of the book a query is matched against
+     */
+    public enum Field {
+        TITLE, AUTHOR, ANY
+    }
+
+    private static final int GRAM = 3;
+
+    // Lower-cased title and author captured when the book was indexed, so a
+    // later edit can still find the entries to remove
+    private final Map<Book, String[]> keys = new IdentityHashMap<>();
+    private final Map<String, Set<Book>> titleGrams = new HashMap<>();
+    private final Map<String, Set<Book>> authorGrams = new HashMap<>();
+    private final Map<String, Set<Book>> titleTokens = new HashMap<>();
+    private final Map<String, Set<Book>> authorTokens = new HashMap<>();
+
+    public void add(Book book) {
+        if (keys.containsKey(book)) {
+            return;
+        }
+        String title = normalize(book.getTitle());
+        String author = normalize(book.getAuthor());
+        keys.put(book, new String[] { title, author });
+        for (String gram : grams(title)) {
+            postings(titleGrams, gram).add(book);
+        }
+        for (String gram : grams(author)) {
+            postings(authorGrams, gram).add(book);
+        }
+        for (String token : tokens(title)) {
+            postings(titleTokens, token).add(book);
+        }
+        for (String token : tokens(author)) {
+            postings(authorTokens, token).add(book);
+        }
+    }
+
+    public void remove(Book book) {
+        String[] indexed = keys.remove(book);
+        if (indexed == null) {
+            return;
+        }
+        for (String gram : grams(indexed[0])) {
+            unlink(titleGrams, gram, book);
+        }
+        for (String gram : grams(indexed[1])) {
+            unlink(authorGrams, gram, book);
+        }
+        for (String token : tokens(indexed[0])) {
+            unlink(titleTokens, token, book);
+        }
+        for (String token : tokens(indexed[1])) {
+            unlink(authorTokens, token, book);
+        }
+    }
+
+    /**
+     * Finds the books whose title and/or author contain the query, ignoring
+     * case. Exact matches come first, then prefix matches, then whole-word
+     * matches, then any other substring; title matches outrank author ones.
+     *
+     * @param query Text to look for
+     * @param field Field(s) to match against
+     * @return Matching books, best match first
+     */
+    public List<Book> search(String query, Field field) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Book, Integer> scores = new IdentityHashMap<>();
+        if (field != Field.AUTHOR) {
+            collect(q, titleGrams, titleTokens, 0, 10, scores);
+        }
+        if (field != Field.TITLE) {
+            collect(q, authorGrams, authorTokens, 1, 0, scores);
+        }
+        List<Book> results = new ArrayList<>(scores.keySet());
+        results.sort(Comparator.<Book>comparingInt(scores::get).reversed()
+                .thenComparing(b -> keys.get(b)[0]));
+        return results;
+    }
+
+    /**
+     * Ranks books like search, but by a pass over all of them instead of the
+     * index, for catalogs that are not kept on the heap
+     *
+     * @param books Hands every book to the given action
+     * @param query Text to look for
+     * @param field Field(s) to match against
+     * @return Matching books, best match first
+     */
+    static List<Book> scan(Consumer<Consumer<? super Book>> books, String query, Field field) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Book, Integer> scores = new HashMap<>();
+        Map<Book, String> titles = new HashMap<>();
+        books.accept(book -> {
+            String title = normalize(book.getTitle());
+            int score = 0;
+            if (field != Field.AUTHOR) {
+                score = score(title, q, 10);
+            }
+            if (field != Field.TITLE) {
+                score = Math.max(score, score(normalize(book.getAuthor()), q, 0));
+            }
+            if (score > 0) {
+                scores.put(book, score);
+                titles.put(book, title);
+            }
+        });
+        List<Book> results = new ArrayList<>(scores.keySet());
+        results.sort(Comparator.<Book>comparingInt(scores::get).reversed().thenComparing(titles::get));
+        return results;
+    }
+
+    /**
+     * @return Number of books in the index
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    private void collect(String q, Map<String, Set<Book>> grams, Map<String, Set<Book>> tokens, int keyIndex,
+            int bonus, Map<Book, Integer> scores) {
+        Set<Book> wholeWord = tokens.getOrDefault(q, Collections.emptySet());
+        for (Book book : candidates(q, grams)) {
+            String text = keys.get(book)[keyIndex];
+            int score = score(text, q, wholeWord.contains(book));
+            if (score > 0) {
+                scores.merge(book, score + bonus, Math::max);
+            }
+        }
+    }
+
+    // Books that may contain q: the smallest posting list among its trigrams,
+    // or every book when q is too short to have one
+    private Iterable<Book> candidates(String q, Map<String, Set<Book>> grams) {
+        if (q.length() < GRAM) {
+            return keys.keySet();
+        }
+        Set<Book> smallest = null;
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            Set<Book> postings = grams.get(q.substring(i, i + GRAM));
+            if (postings == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || postings.size() < smallest.size()) {
+                smallest = postings;
+            }
+        }
+        return smallest;
+    }
+
+    // Score of one field plus its bonus, 0 if it does not contain q
+    private static int score(String text, String q, int bonus) {
+        if (!text.contains(q)) {
+            return 0;
+        }
+        return score(text, q, tokens(text).contains(q)) + bonus;
+    }
+
+    private static int score(String text, String q, boolean wholeWord) {
+        if (text.equals(q)) {
+            return 40;
+        }
+        if (text.startsWith(q)) {
+            return 30;
+        }
+        if (wholeWord) {
+            return 25;
+        }
+        int at = text.indexOf(q);
+        if (at < 0) {
+            return 0;
+        }
+        // Starts a word
+        while (at >= 0) {
+            if (!Character.isLetterOrDigit(text.charAt(at - 1))) {
+                return 20;
+            }
+            at = text.indexOf(q, at + 1);
+        }
+        return 10;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<Book> postings(Map<String, Set<Book>> index, String key) {
+        return index.computeIfAbsent(key, k -> Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static void unlink(Map<String, Set<Book>> index, String key, Book book) {
+        Set<Book> postings = index.get(key);
+        if (postings != null) {
+            postings.remove(book);
+            if (postings.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
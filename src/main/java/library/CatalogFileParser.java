@@ -0,0 +1,358 @@
+package library;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Parallel parser for the books and patrons files.
+ * The file is memory-mapped (or read into memory when small), cut into
+ * chunks that end on a line break and each chunk is scanned on a fork-join
+ * pool with a hand-written pipe splitter, without regular expressions or
+ * intermediate String arrays. Chunks are then handed over in file order, so
+ * the caller sees exactly what reading the file line by line with
+ * {@code split("\\|")} would produce, including where a malformed number
+ * stops the load. The files are read as UTF-8.
+ */
+public class CatalogFileParser {
+
+    // Files up to this size are parsed as a single chunk on the calling thread
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    // Largest region mapped at once; bigger files are mapped in several parts
+    private static final int MAX_MAPPING = Integer.MAX_VALUE;
+
+    /**
+     * Encoding of the books and patrons text files, for readers and writers alike
+     */
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private static final byte[] JOURNAL_MARKER = ascii("#journal|");
+
+    // Fields used by the formats: title|author|isbn|copies|year|type|fileSize|format
+    private static final int MAX_FIELDS = 8;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public CatalogFileParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    CatalogFileParser(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Parses a books file. Books are delivered in file order; a malformed
+     * year only prints a warning and leaves the year at 0.
+     *
+     * @param file    The books file
+     * @param books   Receives each book
+     * @param journal Receives the sequence of any #journal| marker line
+     * @throws IOException           If the file cannot be read
+     * @throws NumberFormatException At the first malformed copies, file size
+     *                               or marker, after every earlier line was
+     *                               delivered
+     */
+    public void parseBooks(Path file, Consumer<Book> books, LongConsumer journal) throws IOException {
+        for (BookChunk chunk : scan(file, BookChunk::new)) {
+            for (String title : chunk.invalidYears) {
+                System.out.println("Invalid year format for book: " + title);
+            }
+            if (chunk.journalSequence != null) {
+                journal.accept(chunk.journalSequence);
+            }
+            chunk.books.forEach(books);
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+        }
+    }
+
+    /**
+     * Parses a patrons file, one id|name|contact per line
+     *
+     * @param file    The patrons file
+     * @param patrons Receives each patron in file order
+     * @throws IOException           If the file cannot be read
+     * @throws NumberFormatException At the first malformed id, after every
+     *                               earlier patron was delivered
+     */
+    public void parsePatrons(Path file, Consumer<Patron> patrons) throws IOException {
+        for (PatronChunk chunk : scan(file, PatronChunk::new)) {
+            chunk.patrons.forEach(patrons);
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+        }
+    }
+
+    private <C extends Chunk> List<C> scan(Path file, ChunkFactory<C> factory) throws IOException {
+        List<C> chunks = new ArrayList<>();
+        List<ForkJoinTask<C>> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= chunkSize) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading until the buffer is full
+                }
+                buffer.flip();
+                C chunk = factory.create(buffer, 0, buffer.limit());
+                chunk.parse();
+                chunks.add(chunk);
+                return chunks;
+            }
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(size - position, MAX_MAPPING);
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = (int) length;
+                if (position + length < size) {
+                    limit = lastLineBreak(mapped, limit) + 1;
+                    if (limit == 0) {
+                        throw new IOException("Line too long in " + file);
+                    }
+                }
+                int start = 0;
+                while (start < limit) {
+                    int end = chunkEnd(mapped, start, limit);
+                    C chunk = factory.create(mapped, start, end);
+                    tasks.add(pool.submit(() -> {
+                        chunk.parse();
+                        return chunk;
+                    }));
+                    start = end;
+                }
+                position += limit;
+            }
+        }
+        for (ForkJoinTask<C> task : tasks) {
+            chunks.add(task.join());
+        }
+        return chunks;
+    }
+
+    // End of the chunk starting at start: just past the first line break at
+    // or after start + chunkSize, or the limit
+    private int chunkEnd(ByteBuffer buffer, int start, int limit) {
+        int i = (int) Math.min((long) start + chunkSize, limit);
+        while (i < limit && buffer.get(i - 1) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int lastLineBreak(ByteBuffer buffer, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private interface ChunkFactory<C> {
+        C create(ByteBuffer buffer, int start, int end);
+    }
+
+    /**
+     * One slice of the file, split into lines and pipe-delimited fields.
+     * Lines end at \n, \r or \r\n like BufferedReader.readLine; fields
+     * follow String.split, so trailing empty fields are not counted.
+     */
+    private abstract class Chunk {
+        final ByteBuffer buffer;
+        // Same bytes with its own position, for bulk copies
+        private final ByteBuffer view;
+        final int start;
+        final int end;
+        final int[] fieldStart = new int[MAX_FIELDS];
+        final int[] fieldEnd = new int[MAX_FIELDS];
+        int fieldCount;
+        NumberFormatException error;
+        private byte[] scratch = new byte[64];
+
+        Chunk(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.view = buffer.duplicate();
+            this.start = start;
+            this.end = end;
+        }
+
+        void parse() {
+            int lineStart = start;
+            while (lineStart < end && error == null) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && buffer.get(lineEnd) != '\n' && buffer.get(lineEnd) != '\r') {
+                    lineEnd++;
+                }
+                try {
+                    line(lineStart, lineEnd);
+                } catch (NumberFormatException e) {
+                    error = e;
+                }
+                lineStart = lineEnd + 1;
+                if (lineEnd + 1 < end && buffer.get(lineEnd) == '\r' && buffer.get(lineEnd + 1) == '\n') {
+                    lineStart++;
+                }
+            }
+        }
+
+        abstract void line(int from, int to);
+
+        void splitFields(int from, int to) {
+            fieldCount = 0;
+            int field = 0;
+            int fieldFrom = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || buffer.get(i) == '|') {
+                    if (field < MAX_FIELDS) {
+                        fieldStart[field] = fieldFrom;
+                        fieldEnd[field] = i;
+                    }
+                    field++;
+                    if (i > fieldFrom) {
+                        fieldCount = field;
+                    }
+                    fieldFrom = i + 1;
+                }
+            }
+        }
+
+        String text(int field) {
+            return decode(fieldStart[field], fieldEnd[field]);
+        }
+
+        String decode(int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            view.position(from);
+            view.get(scratch, 0, length);
+            return new String(scratch, 0, length, CHARSET);
+        }
+
+        /**
+         * Same result as Integer.parseInt(text(field)); short plain numbers
+         * are read straight from the bytes
+         */
+        int parseInt(int field) {
+            int from = fieldStart[field];
+            int to = fieldEnd[field];
+            boolean negative = false;
+            int i = from;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+            if (i < to && to - i <= 9) {
+                int value = 0;
+                for (; i < to; i++) {
+                    int digit = buffer.get(i) - '0';
+                    if (digit < 0 || digit > 9) {
+                        return Integer.parseInt(text(field));
+                    }
+                    value = value * 10 + digit;
+                }
+                return negative ? -value : value;
+            }
+            return Integer.parseInt(text(field));
+        }
+
+        boolean startsWith(int from, int to, byte[] prefix) {
+            if (to - from < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (buffer.get(from + i) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final class BookChunk extends Chunk {
+        final List<Book> books = new ArrayList<>();
+        final List<String> invalidYears = new ArrayList<>(0);
+        Long journalSequence;
+
+        BookChunk(ByteBuffer buffer, int start, int end) {
+            super(buffer, start, end);
+        }
+
+        @Override
+        void line(int from, int to) {
+            if (startsWith(from, to, JOURNAL_MARKER)) {
+                journalSequence = Long.parseLong(decode(from + JOURNAL_MARKER.length, to).trim());
+                return;
+            }
+            splitFields(from, to);
+            if (fieldCount < 4) {
+                return;
+            }
+            String title = text(0);
+            String author = text(1);
+            String isbn = text(2);
+            int copies = parseInt(3);
+
+            int year = 0;
+            if (fieldCount >= 5) {
+                try {
+                    year = parseInt(4);
+                } catch (NumberFormatException e) {
+                    invalidYears.add(title);
+                }
+            }
+
+            Book book;
+            if (fieldCount >= 8 && fieldEnd[5] - fieldStart[5] == 1 && buffer.get(fieldStart[5]) == 'E') {
+                // EBook: E|fileSize|format
+                double fileSize = Double.parseDouble(text(6));
+                book = new EBook(title, author, isbn, copies, year, fileSize, text(7));
+            } else {
+                book = new Book(title, author, isbn, copies, year);
+            }
+            books.add(book);
+        }
+    }
+
+    private final class PatronChunk extends Chunk {
+        final List<Patron> patrons = new ArrayList<>();
+
+        PatronChunk(ByteBuffer buffer, int start, int end) {
+            super(buffer, start, end);
+        }
+
+        @Override
+        void line(int from, int to) {
+            splitFields(from, to);
+            if (fieldCount == 3) {
+                int id = parseInt(0);
+                patrons.add(new Patron(text(1), id, text(2)));
+            }
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,171 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Runs patrons against a virtual clock instead of real sleeps.
+ * Each patron's next borrow or return attempt is an event in a priority
+ * queue ordered by virtual time; the loop jumps the clock to the earliest
+ * event and calls the same Patron.act used by the threaded simulation,
+ * which in turn calls the real LibraryManagementSystem borrow and return
+ * methods. Everything runs on the calling thread with one seeded Random,
+ * so the same seed and inputs always give the same results, and simulated
+ * days take seconds.
+ */
+public class DiscreteEventSimulation {
+
+    /**
+     * Totals of a run
+     */
+    public static class Result {
+        private final long simulatedMillis;
+        private final long events;
+        private final int finishedPatrons;
+        private final long completedTurns;
+
+        Result(long simulatedMillis, long events, int finishedPatrons, long completedTurns) {
+            this.simulatedMillis = simulatedMillis;
+            this.events = events;
+            this.finishedPatrons = finishedPatrons;
+            this.completedTurns = completedTurns;
+        }
+
+        /**
+         * @return Virtual time reached, in milliseconds
+         */
+        public long getSimulatedMillis() {
+            return simulatedMillis;
+        }
+
+        /**
+         * @return Borrow and return attempts made
+         */
+        public long getEvents() {
+            return events;
+        }
+
+        public int getFinishedPatrons() {
+            return finishedPatrons;
+        }
+
+        public long getCompletedTurns() {
+            return completedTurns;
+        }
+
+        @Override
+        public String toString() {
+            return "Tiempo simulado: " + simulatedMillis / 1000 + " s, intentos: " + events
+                    + ", usuarios que terminaron: " + finishedPatrons + ", vueltas completadas: " + completedTurns;
+        }
+    }
+
+    private static final class Event implements Comparable<Event> {
+        final long time;
+        final long sequence;
+        final Patron patron;
+
+        Event(long time, long sequence, Patron patron) {
+            this.time = time;
+            this.sequence = sequence;
+            this.patron = patron;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            // Ties keep scheduling order, so runs do not depend on heap internals
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private final List<Patron> patrons = new ArrayList<>();
+    private final Random random;
+    private long now;
+    private long sequence;
+    private long events;
+    private int finishedPatrons;
+
+    /**
+     * @param seed Seed for every random choice made during the run
+     */
+    public DiscreteEventSimulation(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Enters a patron into the library at the current virtual time
+     *
+     * @param patron A patron created with a library and a number of turns
+     */
+    public void add(Patron patron) {
+        patrons.add(patron);
+        schedule(patron, patron.nextActionDelay(random));
+    }
+
+    /**
+     * Runs until every patron has finished
+     *
+     * @return Totals of the run
+     */
+    public Result run() {
+        return run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs the events up to the given virtual time; patrons still active
+     * afterwards keep their pending events for a later call
+     *
+     * @param untilMillis Virtual time to stop at
+     * @return Totals so far
+     */
+    public Result run(long untilMillis) {
+        while (!queue.isEmpty() && queue.peek().time <= untilMillis) {
+            Event event = queue.poll();
+            now = event.time;
+            Patron patron = event.patron;
+            if (!patron.isActive()) {
+                finished(patron);
+                continue;
+            }
+            events++;
+            long pause = patron.act(random);
+            if (patron.isActive()) {
+                schedule(patron, pause + patron.nextActionDelay(random));
+            } else {
+                finished(patron);
+            }
+        }
+        if (untilMillis != Long.MAX_VALUE && now < untilMillis) {
+            now = untilMillis;
+        }
+        return result();
+    }
+
+    /**
+     * @return Current virtual time in milliseconds
+     */
+    public long now() {
+        return now;
+    }
+
+    private void schedule(Patron patron, long delay) {
+        queue.add(new Event(now + delay, sequence++, patron));
+    }
+
+    private void finished(Patron patron) {
+        finishedPatrons++;
+        patron.finish();
+    }
+
+    private Result result() {
+        long turns = 0;
+        for (Patron patron : patrons) {
+            turns += patron.getCompletedTurns();
+        }
+        return new Result(now, events, finishedPatrons, turns);
+    }
+}
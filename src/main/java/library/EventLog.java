@@ -0,0 +1,253 @@
+package library;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Log of lending and simulation events.
+ * Every event is counted; whether its message is also printed depends on the
+ * mode, the minimum level and the sampling rate. In ASYNC mode the callers
+ * only put the message supplier into a lock-free ring buffer and a
+ * background thread builds and prints the text, so no console I/O or string
+ * concatenation happens on the lending path. When the buffer is full the
+ * message is dropped and counted instead of blocking the caller.
+ */
+public class EventLog implements AutoCloseable {
+
+    /**
+     * Where messages go
+     */
+    public enum Mode {
+        CONSOLE, // printed by the calling thread, the original behaviour
+        ASYNC, // queued in the ring buffer and printed by a background thread
+        SUMMARY // not printed, only counted
+    }
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /**
+     * What happened; each kind has its own counter
+     */
+    public enum Kind {
+        BORROWED("préstamos"),
+        BORROW_REJECTED("préstamos rechazados"),
+        RETURNED("devoluciones"),
+        RETURN_REJECTED("devoluciones rechazadas"),
+        PATRON_STEP("pasos de usuarios"),
+        PATRON_FINISHED("usuarios que terminaron");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Mode mode;
+    private final Level minimumLevel;
+    private final int sampleRate;
+    private final LongAdder[] counters = new LongAdder[Kind.values().length];
+    private final LongAdder dropped = new LongAdder();
+
+    // Ring buffer: producers claim a position by advancing tail, then publish
+    // the message into its slot; the writer thread clears the slot before
+    // advancing head, so a slot is free again once head has passed it
+    private final AtomicReferenceArray<Supplier<String>> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    // Position up to which messages have been printed
+    private volatile long written;
+    private volatile boolean writerWaiting;
+    private volatile boolean closed;
+    private final Thread writer;
+
+    /**
+     * @param mode         Where messages go
+     * @param minimumLevel Messages below this level are only counted
+     * @param sampleRate   Print about one in this many messages, 1 for all
+     * @param bufferSize   Messages the ring buffer holds, rounded up to a
+     *                     power of two
+     */
+    public EventLog(Mode mode, Level minimumLevel, int sampleRate, int bufferSize) {
+        this.mode = mode;
+        this.minimumLevel = minimumLevel;
+        this.sampleRate = Math.max(1, sampleRate);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        int capacity = 2;
+        while (capacity < bufferSize) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        if (mode == Mode.ASYNC) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.writer = new Thread(this::drainLoop, "library-event-log");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.slots = null;
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Console log at every level, like the original println calls
+     */
+    public EventLog() {
+        this(Mode.CONSOLE, Level.DEBUG, 1, 0);
+    }
+
+    /**
+     * Counts the event and, if it passes the level and sampling filters,
+     * prints its message. The supplier may run later on another thread, so it
+     * should only capture values, not read shared state.
+     *
+     * @param kind    Counter to increment
+     * @param level   Level of the message
+     * @param message Builds the message text
+     */
+    public void log(Kind kind, Level level, Supplier<String> message) {
+        counters[kind.ordinal()].increment();
+        if (mode == Mode.SUMMARY || level.compareTo(minimumLevel) < 0) {
+            return;
+        }
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        if (mode == Mode.CONSOLE) {
+            System.out.println(message.get());
+        } else if (!offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Number of events of the kind logged so far, printed or not
+     */
+    public long count(Kind kind) {
+        return counters[kind.ordinal()].sum();
+    }
+
+    /**
+     * @return Messages lost because the ring buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return One line with every counter
+     */
+    public String summary() {
+        StringBuilder line = new StringBuilder();
+        for (Kind kind : Kind.values()) {
+            line.append(kind.label).append(": ").append(count(kind)).append(", ");
+        }
+        return line.append("mensajes descartados: ").append(getDropped()).toString();
+    }
+
+    /**
+     * Waits until the writer has printed every message queued so far
+     */
+    public void flush() {
+        if (writer == null) {
+            return;
+        }
+        long target = tail.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Prints the queued messages and stops the writer thread
+     */
+    @Override
+    public void close() {
+        if (writer == null || closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Never blocks: false if the buffer is full or the log is closed
+    private boolean offer(Supplier<String> message) {
+        if (closed) {
+            return false;
+        }
+        long position;
+        do {
+            position = tail.get();
+            if (position - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+        slots.lazySet((int) position & mask, message);
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder();
+        while (true) {
+            long position = head;
+            int index = (int) position & mask;
+            Supplier<String> message = slots.get(index);
+            if (message != null) {
+                slots.lazySet(index, null);
+                head = position + 1;
+                appendQuietly(batch, message);
+                if (batch.length() < 64 * 1024) {
+                    continue;
+                }
+            }
+            // Nothing published yet (or a full batch): print what we have in
+            // one call, then sleep until a producer wakes us
+            if (batch.length() > 0) {
+                System.out.print(batch);
+                batch.setLength(0);
+                written = head;
+                continue;
+            }
+            if (closed && position == tail.get()) {
+                return;
+            }
+            writerWaiting = true;
+            if (slots.get(index) == null) {
+                LockSupport.parkNanos(10_000_000);
+            }
+            writerWaiting = false;
+        }
+    }
+
+    private static void appendQuietly(StringBuilder batch, Supplier<String> message) {
+        try {
+            batch.append(message.get()).append(System.lineSeparator());
+        } catch (RuntimeException e) {
+            batch.append("Error al generar un mensaje: ").append(e).append(System.lineSeparator());
+        }
+    }
+}
@@ -5,15 +5,34 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
@@ -23,23 +42,91 @@ import library.Book;
 import library.EBook;
 import library.BookManager;
 
-public class LibraryManagementSystem implements BookManager {
+public class LibraryManagementSystem implements BookManager, AutoCloseable {
+
+    /*
+     * Locking: the catalog (inventory and book indices) is guarded by
+     * catalogLock. Borrow and return only take its read lock, so they run in
+     * parallel; copy counts change through Book's compare-and-set counter and
+     * loans serialize per patron through PatronLoans, found in the striped
+     * PatronLoanTable. Adding, editing and removing books, and capturing a
+     * snapshot for the books file, take the write lock. The patron list and
+     * patron index are guarded by the monitor.
+     *
+     * With -Dlibrary.storage=mapped the books live in a MappedBookStore
+     * instead, and bookInventory and the in-memory indices below stay empty:
+     * ISBN and title lookups go to the store's mapped tables, searches and
+     * sorted listings make a pass over it, and the same locks apply.
+     */
+    private final ReadWriteLock catalogLock = new ReentrantReadWriteLock();
 
     private final List<Book> bookInventory = new ArrayList<>();
+    // Immutable copy of bookInventory, republished under the write lock on
+    // every add/remove so readers get it without copying or locking
+    private volatile List<Book> catalogSnapshot = Collections.emptyList();
+    private final AvailableBooks availableBooks = new AvailableBooks();
     private final List<Patron> patrons = new ArrayList<>();
-    private final Map<Integer, List<Book>> borrowedBooks = new HashMap<>();
+    private final PatronLoanTable borrowedBooks = new PatronLoanTable();
 
+    // Primary index keyed by normalized ISBN, a secondary index by lower-case
+    // title and a full-text index for searches; all kept up to date incrementally
+    private final Map<String, Book> bookIsbnIndex = new HashMap<>();
     private final Map<String, List<Book>> bookTitleIndex = new HashMap<>();
-    private final Map<String, List<Book>> bookAuthorIndex = new HashMap<>();
-    private final Map<Integer, Patron> patronIndex = new HashMap<>();
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final SortedBookViews sortedViews = new SortedBookViews();
+    // Guarded by the monitor, like the patron list
+    private final IntObjectMap<Patron> patronIndex = new IntObjectMap<>();
+
+    // Off-heap catalog; null unless the storage setting is MAPPED
+    private MappedBookStore store;
 
     private final Scanner scanner = new Scanner(System.in);
 
-    private final String BOOKS_FILE = "books.txt";
-    private final String PATRONS_FILE = "patrons.txt";
+    // Splits the books and patrons files into chunks parsed in parallel
+    private final CatalogFileParser fileParser = new CatalogFileParser();
+
+    private final String BOOKS_FILE;
+    private final String PATRONS_FILE;
     private final String LIBRARIANS_FILE = "librarians.txt";
 
+    // First line of a books file written in journal mode: #journal|<last sequence>
+    static final String JOURNAL_MARKER = "#journal|";
+
+    private final LibrarySettings settings;
+
+    // Journal persistence (null in SNAPSHOT mode)
+    private BookJournal journal;
+    // Last journal sequence the books file contains; SNAPSHOT mode keeps
+    // writing it so a later JOURNAL run does not replay those records again
+    private long snapshotJournalSequence;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private ExecutorService compactionExecutor;
+    private final Object snapshotWriteLock = new Object();
+    private long snapshotVersion;
+    private long lastWrittenSnapshotVersion;
+
+    // Coalesces books/patrons file rewrites; never called while holding the monitor
+    private final WriteBehindPersister persister;
+
+    // Lending and simulation messages; see -Dlibrary.log.mode
+    private final EventLog eventLog;
+
+    // Latencies and lock waits; see -Dlibrary.metrics
+    private final LibraryMetrics metrics;
+
     public LibraryManagementSystem() {
+        this(LibrarySettings.fromSystemProperties());
+    }
+
+    public LibraryManagementSystem(LibrarySettings settings) {
+        this.settings = settings;
+        this.BOOKS_FILE = settings.getBooksFile();
+        this.PATRONS_FILE = settings.getPatronsFile();
+        this.persister = new WriteBehindPersister(this::saveBooksToFile, this::savePatronsToFile,
+                settings.getFlushIntervalMillis(), settings.getFlushMaxMutations());
+        this.eventLog = new EventLog(settings.getLogMode(), settings.getLogLevel(), settings.getLogSampleRate(),
+                settings.getLogBufferSize());
+        this.metrics = new LibraryMetrics(settings.isMetricsEnabled());
         System.out.println("Library Management System initialized.");
         loadBooksFromFile();
         loadPatronsFromFile();
@@ -57,6 +144,7 @@ public class LibraryManagementSystem implements BookManager {
         System.out.println("-------------------------------------\n");
 
         manager.runMenu();
+        manager.close();
 
         System.out.println("Gracias por utilizar el Sistema de Biblioteca.");
     }
@@ -73,6 +161,7 @@ public class LibraryManagementSystem implements BookManager {
             System.out.println("4) Sistema de Usuarios");
             System.out.println("5) Sistema de Préstamos");
             System.out.println("6) Ordenar Libros");
+            System.out.println("7) Métricas");
             System.out.println("0) Salir");
             System.out.print("Seleccione una opción: ");
             String choice = scanner.nextLine();
@@ -96,6 +185,9 @@ public class LibraryManagementSystem implements BookManager {
                 case "6":
                     sortBooksMenu();
                     break;
+                case "7":
+                    metricsMenu();
+                    break;
                 case "0":
                     return;
                 default:
@@ -282,6 +374,40 @@ public class LibraryManagementSystem implements BookManager {
         }
     }
 
+    // Metrics Submenu
+    private void metricsMenu() {
+        if (!metrics.isEnabled()) {
+            System.out.println("Las métricas están desactivadas. Inicie con -Dlibrary.metrics=true.");
+            return;
+        }
+        while (true) {
+            System.out.println("\n--- Métricas ---");
+            System.out.println("1) Mostrar como texto");
+            System.out.println("2) Mostrar como JSON");
+            System.out.println("3) Reiniciar");
+            System.out.println("0) Volver al menú principal");
+            System.out.print("Seleccione una opción: ");
+            String choice = scanner.nextLine();
+
+            switch (choice) {
+                case "1":
+                    System.out.print(metrics.toText());
+                    break;
+                case "2":
+                    System.out.println(metrics.toJson());
+                    break;
+                case "3":
+                    metrics.reset();
+                    System.out.println("Métricas reiniciadas.");
+                    break;
+                case "0":
+                    return;
+                default:
+                    System.out.println("Opción inválida, intente de nuevo.");
+            }
+        }
+    }
+
     public void authenticateLibrarian() {
         while (true) {
             System.out.println("\n--- Librarian Authentication ---");
@@ -427,107 +553,370 @@ public class LibraryManagementSystem implements BookManager {
     }
 
     private void loadBooksFromFile() {
-        try (BufferedReader br = new BufferedReader(new FileReader(BOOKS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length >= 4) {
-                    String title = parts[0];
-                    String author = parts[1];
-                    String isbn = parts[2];
-                    int copies = Integer.parseInt(parts[3]);
-
-                    // Handle year field if present, otherwise default to 0
-                    int year = 0;
-                    if (parts.length >= 5) {
-                        try {
-                            year = Integer.parseInt(parts[4]);
-                        } catch (NumberFormatException e) {
-                            System.out.println("Invalid year format for book: " + title);
-                        }
-                    }
+        long start = metrics.load.start();
+        if (settings.getStorage() == LibrarySettings.Storage.MAPPED && openStore()) {
+            metrics.load.stop(start);
+            return;
+        }
+        Path booksPath = Paths.get(BOOKS_FILE);
+        Consumer<Book> add = book -> {
+            bookInventory.add(book);
+            addBookToIndices(book);
+        };
+        LongConsumer marker = sequence -> snapshotJournalSequence = sequence;
+        try {
+            // Either format is read back, whatever the configured one
+            if (BinaryCatalogFile.isBinary(booksPath)) {
+                BinaryCatalogFile.read(booksPath, add, marker);
+            } else {
+                fileParser.parseBooks(booksPath, add, marker);
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo cargar books.txt. Se creará uno nuevo al guardar.");
+        } catch (NumberFormatException e) {
+            System.out.println("Error al parsear valores numéricos en books.txt.");
+        }
+
+        if (settings.getPersistenceMode() == LibrarySettings.PersistenceMode.JOURNAL) {
+            openJournal();
+        } else {
+            applyLeftoverJournal();
+        }
+        for (Book b : bookInventory) {
+            availableBooks.refresh(b);
+        }
+        publishCatalog();
+        metrics.load.stop(start);
+    }
+
+    /**
+     * Maps the store, importing the books file (and any journal left with it)
+     * when the store is created. From then on the store is the catalog: the
+     * books file is rewritten from it on close as a copy, but never imported
+     * again. Copy changes are written into the mapped slots, so the journal
+     * is not used.
+     *
+     * @return False if no store existed and none could be created; the
+     *         books are then kept on the heap as usual
+     * @throws IllegalStateException If an existing store cannot be opened, so
+     *                               the books file is not used in its place
+     */
+    private boolean openStore() {
+        Path base = Paths.get(settings.getStoreFile());
+        boolean existed = MappedBookStore.exists(base);
+        try {
+            store = MappedBookStore.open(base);
+            Path booksPath = Paths.get(BOOKS_FILE);
+            if (!existed && Files.exists(booksPath)) {
+                int imported = store.importBooks(booksPath, sequence -> snapshotJournalSequence = sequence);
+                applyLeftoverJournal();
+                store.flush();
+                System.out.println("Se importaron " + imported + " libros de " + BOOKS_FILE + " al almacén mapeado.");
+            } else {
+                snapshotJournalSequence = leftoverJournalSequence();
+            }
+            System.out.println("El catálogo se lee del almacén mapeado " + base + "; " + BOOKS_FILE
+                    + " es solo una copia que se reescribe al cerrar.");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            closeStore();
+            if (existed) {
+                System.out.println("No se pudo abrir el almacén mapeado " + base + ". Contiene el catálogo, así que "
+                        + BOOKS_FILE + " no se usará en su lugar.");
+                throw new IllegalStateException("Cannot open the mapped book store " + base, e);
+            }
+            System.out.println("No se pudo crear el almacén mapeado. Los libros se cargarán en memoria desde "
+                    + BOOKS_FILE + ".");
+            return false;
+        }
+    }
 
-                    Book book;
+    private void closeStore() {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("Error al cerrar el almacén mapeado.");
+        }
+        store = null;
+    }
 
-                    // Check for book type if present (format: type|specific_attributes...)
-                    if (parts.length > 5) {
-                        String bookType = parts[5];
+    // Caller holds the catalog write lock (or is still constructing)
+    private void publishCatalog() {
+        catalogSnapshot = Collections.unmodifiableList(new ArrayList<>(bookInventory));
+    }
 
-                        if ("E".equals(bookType) && parts.length >= 8) {
-                            // EBook: E|fileSize|format
-                            double fileSize = Double.parseDouble(parts[6]);
-                            String format = parts[7];
-                            book = new EBook(title, author, isbn, copies, year, fileSize, format);
-                        } else {
-                            // Regular book
-                            book = new Book(title, author, isbn, copies, year);
-                        }
-                    } else {
-                        // Older format without book type
-                        book = new Book(title, author, isbn, copies, year);
-                    }
-                    bookInventory.add(book);
-                    addBookToIndices(book);
-                }
+    // Replays the copy-count changes recorded after the snapshot was written
+    private void openJournal() {
+        try {
+            journal = new BookJournal(Paths.get(settings.getJournalFile()), settings.getJournalSyncPolicy());
+            int replayed = journal.replay(snapshotJournalSequence, this::applyJournalRecord);
+            journal.advanceTo(snapshotJournalSequence);
+            if (journal.damagedRecords() > 0) {
+                System.out.println("Se omitieron " + journal.damagedRecords()
+                        + " registros dañados del diario de préstamos.");
+            }
+            if (replayed > 0) {
+                System.out.println("Se aplicaron " + replayed + " cambios del diario de préstamos.");
             }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("No se pudo abrir el diario de préstamos. Se guardará el inventario completo.");
+            journal = null;
+        }
+    }
+
+    /**
+     * Applies the records of a journal left by an earlier JOURNAL-mode run
+     * that the books file does not contain yet, and takes over its last
+     * sequence as the marker for later saves
+     */
+    private void applyLeftoverJournal() {
+        Path file = Paths.get(settings.getJournalFile());
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BookJournal leftover = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            int replayed = leftover.replay(snapshotJournalSequence, this::applyJournalRecord);
+            snapshotJournalSequence = Math.max(snapshotJournalSequence, leftover.lastSequence());
+            if (replayed > 0) {
+                System.out.println("Se aplicaron " + replayed + " cambios del diario de préstamos.");
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("No se pudo leer el diario de préstamos anterior.");
+        }
+    }
 
+    // Last sequence of a leftover journal, all of whose records the store has
+    private long leftoverJournalSequence() {
+        Path file = Paths.get(settings.getJournalFile());
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (BookJournal leftover = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            return leftover.lastSequence();
         } catch (IOException e) {
-            System.out.println("No se pudo cargar books.txt. Se creará uno nuevo al guardar.");
-        } catch (NumberFormatException e) {
-            System.out.println("Error al parsear valores numéricos en books.txt.");
+            return 0;
         }
     }
 
-    private void saveBooksToFile() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(BOOKS_FILE))) {
-            for (Book b : bookInventory) {
-                StringBuilder line = new StringBuilder();
-                line.append(b.getTitle()).append("|")
-                        .append(b.getAuthor()).append("|")
-                        .append(b.getIsbn()).append("|")
-                        .append(b.getCopies()).append("|")
-                        .append(b.getYear());
+    private void applyJournalRecord(String isbn, int delta) {
+        Book b = store != null ? store.findByIsbn(isbn) : bookIsbnIndex.get(normalizeIsbn(isbn));
+        if (b != null) {
+            b.setCopies(b.getCopies() + delta);
+        }
+    }
 
-                // Add book type and specific attributes
-                if (b instanceof EBook) {
-                    EBook ebook = (EBook) b;
-                    line.append("|E|") // E for EBook
-                            .append(ebook.getFileSize()).append("|")
-                            .append(ebook.getFormat());
-                } else {
-                    line.append("|B"); // B for regular Book
-                }
+    // Captures the inventory under the write lock and writes it outside of it;
+    // package-private so PersistenceBenchmark can time it directly
+    void saveBooksToFile() {
+        long start = metrics.save.start();
+        try {
+            writeBooksFile();
+        } finally {
+            metrics.save.stop(start);
+        }
+    }
+
+    private void writeBooksFile() {
+        if (store != null) {
+            // The mapped files are the catalog; only force them to disk
+            store.flush();
+            return;
+        }
+        exportBooksFile();
+    }
+
+    // Writes the heap catalog, or a copy of the mapped one, to the books file
+    private void exportBooksFile() {
+        List<Book> books;
+        long sequence;
+        long version;
+        lockCatalogForWrite();
+        try {
+            books = snapshotBooks();
+            sequence = journal != null ? journal.lastSequence() : snapshotJournalSequence;
+            version = ++snapshotVersion;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        // In journal mode every full save is also a checkpoint
+        writeSnapshot(books, journal != null || sequence > 0 ? Long.valueOf(sequence) : null, version);
+    }
+
+    static String formatBookLine(Book b) {
+        StringBuilder line = new StringBuilder();
+        line.append(b.getTitle()).append("|")
+                .append(b.getAuthor()).append("|")
+                .append(b.getIsbn()).append("|")
+                .append(b.getCopies()).append("|")
+                .append(b.getYear());
+
+        // Add book type and specific attributes
+        if (b instanceof EBook) {
+            EBook ebook = (EBook) b;
+            line.append("|E|") // E for EBook
+                    .append(ebook.getFileSize()).append("|")
+                    .append(ebook.getFormat());
+        } else {
+            line.append("|B"); // B for regular Book
+        }
+        return line.toString();
+    }
+
+    // Copies of the books, so the file can be written after the lock is released
+    private List<Book> snapshotBooks() {
+        if (store != null) {
+            List<Book> books = new ArrayList<>(store.size());
+            store.forEach(b -> books.add(((MappedBookStore.BookView) b).toHeapBook()));
+            return books;
+        }
+        List<Book> books = new ArrayList<>(bookInventory.size());
+        for (Book b : bookInventory) {
+            if (b instanceof EBook) {
+                EBook e = (EBook) b;
+                books.add(new EBook(e.getTitle(), e.getAuthor(), e.getIsbn(), e.getCopies(), e.getYear(),
+                        e.getFileSize(), e.getFormat()));
+            } else {
+                books.add(new Book(b.getTitle(), b.getAuthor(), b.getIsbn(), b.getCopies(), b.getYear()));
+            }
+        }
+        return books;
+    }
 
-                pw.println(line.toString());
+    /**
+     * Records a copy-count change. In journal mode only the delta is appended;
+     * otherwise the books file has to be rewritten.
+     * Must be called while still holding the catalog read lock under which
+     * the copy was taken or given back with Book.tryAcquireCopy/releaseCopy.
+     * Snapshots take the write lock, so they see either both the new count
+     * and its journal record or neither. Concurrent loans of the same book
+     * may append in a different order than their CAS succeeded, which is
+     * harmless because replay only adds the deltas up.
+     *
+     * @return Journal sequence to pass to persistCopyChange, or 0 if the whole
+     *         books file must be saved instead
+     */
+    private long recordCopyChange(Book book, int delta) {
+        if (journal == null) {
+            return 0;
+        }
+        try {
+            long sequence = journal.append(book.getIsbn(), delta);
+            if (journal.pendingRecords() >= settings.getJournalCompactionThreshold()) {
+                scheduleCompaction();
             }
+            return sequence;
         } catch (IOException e) {
-            System.out.println("Error al guardar books.txt.");
+            System.out.println("Error al escribir en el diario de préstamos. Se guardará el inventario completo.");
+            return 0;
         }
     }
 
-    private void loadPatronsFromFile() {
-        try (BufferedReader br = new BufferedReader(new FileReader(PATRONS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length == 3) {
-                    int id = Integer.parseInt(parts[0]);
-                    String name = parts[1];
-                    String contact = parts[2];
-                    Patron patron = new Patron(name, id, contact);
-                    patrons.add(patron);
-                    patronIndex.put(id, patron);
+    // Waits for the journal record to reach the disk, or hands the books file to
+    // the persister; called outside all locks so concurrent loans share an fsync
+    private void persistCopyChange(long sequence) {
+        if (sequence == 0) {
+            persister.booksChanged();
+            return;
+        }
+        try {
+            journal.sync(sequence);
+        } catch (IOException e) {
+            System.out.println("Error al sincronizar el diario de préstamos.");
+        }
+    }
+
+    // Checkpoints the journal into a new books file in the background
+    private void scheduleCompaction() {
+        if (!compactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (compactionScheduled) {
+            if (compactionExecutor == null) {
+                compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "books-journal-compaction");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        compactionExecutor.execute(() -> {
+            try {
+                saveBooksToFile();
+            } finally {
+                compactionScheduled.set(false);
+            }
+        });
+    }
+
+    /**
+     * Writes the books file through a temporary file that is forced and
+     * moved into place, so a crash mid-write leaves the previous file
+     * intact. In journal mode the records up to the marker are then dropped
+     * from the journal. An older capture that finishes after a newer one is
+     * discarded.
+     *
+     * @param sequence Last journal sequence the snapshot contains, or null
+     *                 to write no marker
+     */
+    private void writeSnapshot(List<Book> books, Long sequence, long version) {
+        synchronized (snapshotWriteLock) {
+            if (version <= lastWrittenSnapshotVersion) {
+                return;
+            }
+            Path target = Paths.get(BOOKS_FILE);
+            Path tmp = Paths.get(BOOKS_FILE + ".tmp");
+            try {
+                if (settings.getBooksFormat() == LibrarySettings.BooksFormat.BINARY) {
+                    BinaryCatalogFile.write(tmp, books, sequence);
+                } else {
+                    List<String> content = new ArrayList<>(books.size() + 1);
+                    if (sequence != null) {
+                        content.add(JOURNAL_MARKER + sequence);
+                    }
+                    for (Book b : books) {
+                        content.add(formatBookLine(b));
+                    }
+                    Files.write(tmp, content, CatalogFileParser.CHARSET);
+                }
+                try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    fc.force(true);
                 }
+                BookJournal.moveReplacing(tmp, target);
+                lastWrittenSnapshotVersion = version;
+                if (journal != null) {
+                    journal.truncateThrough(sequence);
+                }
+            } catch (IOException e) {
+                System.out.println("Error al guardar books.txt.");
             }
+        }
+    }
+
+    private void loadPatronsFromFile() {
+        try {
+            fileParser.parsePatrons(Paths.get(PATRONS_FILE), patron -> {
+                patrons.add(patron);
+                patronIndex.put(patron.getId(), patron);
+            });
         } catch (IOException e) {
             System.out.println("No se pudo cargar patrons.txt. Se creará uno nuevo al guardar.");
         }
     }
 
     private void savePatronsToFile() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(PATRONS_FILE))) {
+        List<String> lines = new ArrayList<>();
+        synchronized (this) {
             for (Patron p : patrons) {
-                pw.println(p.getId() + "|" + p.getName() + "|" + p.getContact());
+                lines.add(p.getId() + "|" + p.getName() + "|" + p.getContact());
+            }
+        }
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(Paths.get(PATRONS_FILE),
+                CatalogFileParser.CHARSET))) {
+            for (String line : lines) {
+                pw.println(line);
             }
         } catch (IOException e) {
             System.out.println("Error al guardar patrons.txt.");
@@ -543,11 +932,9 @@ public class LibraryManagementSystem implements BookManager {
             System.out.println("Ingrese el ISBN del libro:");
             String isbn = scanner.nextLine();
 
-            for (Book bk : bookInventory) {
-                if (bk.getIsbn().equalsIgnoreCase(isbn)) {
-                    System.out.println("Ya existe un libro con el ISBN " + isbn + ". Operación cancelada.");
-                    return;
-                }
+            if (findBookByIsbn(isbn) != null) {
+                System.out.println("Ya existe un libro con el ISBN " + isbn + ". Operación cancelada.");
+                return;
             }
             System.out.println("Ingrese la cantidad de copias disponibles:");
             int copies = Integer.parseInt(scanner.nextLine());
@@ -572,9 +959,7 @@ public class LibraryManagementSystem implements BookManager {
                 newBook = new Book(title, author, isbn, copies, year);
             }
 
-            bookInventory.add(newBook);
-            addBookToIndices(newBook);
-            saveBooksToFile();
+            addBook(newBook);
             System.out.println("¡Libro agregado exitosamente!");
         } catch (NumberFormatException e) {
             System.out.println("Error al parsear valores numéricos.");
@@ -582,26 +967,141 @@ public class LibraryManagementSystem implements BookManager {
         }
     }
 
+    /**
+     * ISBNs are compared ignoring case, surrounding spaces and hyphens, so
+     * "978-0-261-10325-2" and " 9780261103252" refer to the same book
+     */
+    static String normalizeIsbn(String isbn) {
+        StringBuilder sb = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Callers hold the catalog write lock
     private void addBookToIndices(Book book) {
+        // The first book loaded with a given ISBN wins, as the old linear scans did
+        bookIsbnIndex.putIfAbsent(normalizeIsbn(book.getIsbn()), book);
         String titleKey = book.getTitle().toLowerCase();
         bookTitleIndex.computeIfAbsent(titleKey, k -> new ArrayList<>()).add(book);
-        String authorKey = book.getAuthor().toLowerCase();
-        bookAuthorIndex.computeIfAbsent(authorKey, k -> new ArrayList<>()).add(book);
+        searchIndex.add(book);
+        sortedViews.add(book);
     }
 
-    private void rebuildBookIndices() {
-        bookTitleIndex.clear();
-        bookAuthorIndex.clear();
-        for (Book book : bookInventory) {
-            addBookToIndices(book);
+    // Removes the book from the entries for the given (possibly old) keys
+    private void removeBookFromIndices(Book book, String title, String author, String isbn) {
+        bookIsbnIndex.remove(normalizeIsbn(isbn), book);
+        removeFromBucket(bookTitleIndex, title.toLowerCase(), book);
+        searchIndex.remove(book);
+        sortedViews.remove(book);
+    }
+
+    private static void removeFromBucket(Map<String, List<Book>> index, String key, Book book) {
+        List<Book> bucket = index.get(key);
+        if (bucket == null) {
+            return;
+        }
+        // Compare by identity: two copies of a title are distinct entries
+        bucket.removeIf(b -> b == book);
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    // Every book with the title, ignoring case
+    private List<Book> booksWithTitle(String title) {
+        if (store != null) {
+            return store.findByTitle(title);
+        }
+        List<Book> books = bookTitleIndex.get(title.toLowerCase());
+        return books != null ? books : Collections.emptyList();
+    }
+
+    // Ranked matches from the full-text index, or from a pass over the store.
+    // A blank query matches every book in catalog order, as contains("") did.
+    private List<Book> search(String query, BookSearchIndex.Field field) {
+        if (BookSearchIndex.normalize(query).isEmpty()) {
+            List<Book> all = new ArrayList<>(getBookCount());
+            if (store != null) {
+                store.forEach(all::add);
+            } else {
+                all.addAll(bookInventory);
+            }
+            return all;
+        }
+        return store != null ? BookSearchIndex.scan(store::forEach, query, field) : searchIndex.search(query, field);
+    }
+
+    /**
+     * A pass over the store, sorted by a key read once per book. The sort is
+     * stable, so equal keys keep insertion order as in SortedBookViews.
+     */
+    private <K extends Comparable<K>> List<Book> sortedStoreBooks(Predicate<Book> filter, Function<Book, K> key,
+            boolean descending) {
+        List<Map.Entry<K, Book>> keyed = new ArrayList<>();
+        store.forEach(b -> {
+            if (filter.test(b)) {
+                keyed.add(new AbstractMap.SimpleImmutableEntry<>(key.apply(b), b));
+            }
+        });
+        Comparator<Map.Entry<K, Book>> order = Map.Entry.comparingByKey();
+        keyed.sort(descending ? order.reversed() : order);
+        List<Book> books = new ArrayList<>(keyed.size());
+        for (Map.Entry<K, Book> entry : keyed) {
+            books.add(entry.getValue());
         }
+        return books;
+    }
+
+    // The store answers availability from the slots themselves
+    private void refreshAvailability(Book book) {
+        if (store == null) {
+            availableBooks.refresh(book);
+        }
+    }
+
+    /**
+     * Looks a book up through the ISBN index
+     *
+     * @param isbn ISBN in any formatting
+     * @return The book, or null if there is none with that ISBN
+     */
+    public Book findBookByIsbn(String isbn) {
+        return readLocked(() -> store != null ? store.findByIsbn(isbn) : bookIsbnIndex.get(normalizeIsbn(isbn)));
+    }
+
+    private <T> T readLocked(Supplier<T> query) {
+        long start = metrics.search.start();
+        lockCatalogForRead();
+        try {
+            return query.get();
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.search.stop(start);
+        }
+    }
+
+    private void lockCatalogForRead() {
+        metrics.lock(catalogLock.readLock(), metrics.readLockWait, metrics.readLockContended);
+    }
+
+    private void lockCatalogForWrite() {
+        metrics.lock(catalogLock.writeLock(), metrics.writeLockWait, metrics.writeLockContended);
     }
 
     public void displayBooks() {
-        if (bookInventory.isEmpty()) {
+        if (getBookCount() == 0) {
             System.out.println("No hay libros disponibles en la biblioteca.");
             return;
         }
+        if (store != null) {
+            store.forEach(Book::display);
+            return;
+        }
         for (Book b : bookInventory) {
             b.display();
         }
@@ -610,12 +1110,11 @@ public class LibraryManagementSystem implements BookManager {
     public void removeBook() {
         System.out.println("Ingrese el título del libro que desea eliminar:");
         String removeTitle = scanner.nextLine();
-        String titleKey = removeTitle.toLowerCase();
-        if (!bookTitleIndex.containsKey(titleKey)) {
+        List<Book> booksToRemove = booksWithTitle(removeTitle);
+        if (booksToRemove.isEmpty()) {
             System.out.println("No se encontró un libro con ese título.");
             return;
         }
-        List<Book> booksToRemove = bookTitleIndex.get(titleKey);
         Book bookToRemove = null;
         if (booksToRemove.size() == 1) {
             bookToRemove = booksToRemove.get(0);
@@ -633,26 +1132,40 @@ public class LibraryManagementSystem implements BookManager {
                 return;
             }
         }
-        final Book finalBookToRemove = bookToRemove;
-        bookInventory.remove(bookToRemove);
-        for (List<Book> loans : borrowedBooks.values()) {
-            loans.removeIf(b -> b.getIsbn().equalsIgnoreCase(finalBookToRemove.getIsbn()));
-        }
+        removeBook(bookToRemove);
         System.out.println("Libro eliminado de la biblioteca.");
-        rebuildBookIndices();
-        saveBooksToFile();
+    }
+
+    /**
+     * Removes a book from the inventory, its indices and any open loans
+     *
+     * @param book The book to remove; with mapped storage, a book returned by
+     *             this library
+     */
+    public void removeBook(Book book) {
+        lockCatalogForWrite();
+        try {
+            borrowedBooks.forEach((patronId, loans) -> loans.removeAll(book));
+            if (store != null) {
+                if (book instanceof MappedBookStore.BookView) {
+                    store.remove((MappedBookStore.BookView) book);
+                }
+            } else {
+                bookInventory.remove(book);
+                removeBookFromIndices(book, book.getTitle(), book.getAuthor(), book.getIsbn());
+                availableBooks.remove(book);
+                publishCatalog();
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        persister.booksChanged();
     }
 
     public void editBook() {
         System.out.println("Ingrese el ISBN del libro a editar:");
         String targetIsbn = scanner.nextLine();
-        Book target = null;
-        for (Book b : bookInventory) {
-            if (b.getIsbn().equalsIgnoreCase(targetIsbn)) {
-                target = b;
-                break;
-            }
-        }
+        Book target = findBookByIsbn(targetIsbn);
         if (target == null) {
             System.out.println("Libro con ISBN " + targetIsbn + " no encontrado.");
             return;
@@ -661,79 +1174,111 @@ public class LibraryManagementSystem implements BookManager {
         System.out.println("Valores actuales:");
         target.display();
 
+        // Collect the changes first and apply them under the write lock, so
+        // concurrent loans never see a half-edited book
         System.out.println("Ingrese el nuevo título (o presione ENTER para mantener):");
         String newTitle = scanner.nextLine();
-        if (!newTitle.trim().isEmpty()) {
-            target.setTitle(newTitle);
-        }
 
         System.out.println("Ingrese el nuevo autor (o presione ENTER para mantener):");
         String newAuthor = scanner.nextLine();
-        if (!newAuthor.trim().isEmpty()) {
-            target.setAuthor(newAuthor);
-        }
 
         System.out.println("Ingrese el nuevo ISBN (o presione ENTER para mantener):");
         String newIsbn = scanner.nextLine();
         if (!newIsbn.trim().isEmpty()) {
-            target.setIsbn(newIsbn);
+            Book existing = findBookByIsbn(newIsbn);
+            if (existing != null && existing != target) {
+                System.out.println("Ya existe un libro con el ISBN " + newIsbn + "; se mantiene el ISBN anterior.");
+                newIsbn = "";
+            }
         }
 
         System.out.println("Ingrese la nueva cantidad de copias (ingrese -1 para mantener el valor actual):");
+        int newCopies = -1;
         try {
-            int newCopies = Integer.parseInt(scanner.nextLine());
-            if (newCopies != -1) {
-                target.setCopies(newCopies);
-            }
+            newCopies = Integer.parseInt(scanner.nextLine());
         } catch (NumberFormatException e) {
             System.out.println("Valor inválido para copias; se mantiene el valor anterior.");
         }
 
         System.out.println("Ingrese el nuevo año de publicación (ingrese -1 para mantener el valor actual):");
+        int newYear = -1;
         try {
-            int newYear = Integer.parseInt(scanner.nextLine());
-            if (newYear != -1) {
-                target.setYear(newYear);
-            }
+            newYear = Integer.parseInt(scanner.nextLine());
         } catch (NumberFormatException e) {
             System.out.println("Valor inválido para año; se mantiene el valor anterior.");
         }
 
         // Handle EBook specific fields if applicable
-        if (target instanceof EBook) {
-            EBook ebook = (EBook) target;
-
+        double newFileSize = -1;
+        String newFormat = "";
+        boolean hasEBookFields = target instanceof EBook
+                || (target instanceof MappedBookStore.BookView && ((MappedBookStore.BookView) target).isEBook());
+        if (hasEBookFields) {
             System.out.println("Ingrese el nuevo tamaño de archivo en MB (ingrese -1 para mantener el valor actual):");
             try {
-                double newFileSize = Double.parseDouble(scanner.nextLine());
-                if (newFileSize != -1) {
-                    ebook.setFileSize(newFileSize);
-                }
+                newFileSize = Double.parseDouble(scanner.nextLine());
             } catch (NumberFormatException e) {
                 System.out.println("Valor inválido para tamaño de archivo; se mantiene el valor anterior.");
             }
 
             System.out.println("Ingrese el nuevo formato (o presione ENTER para mantener):");
-            String newFormat = scanner.nextLine();
-            if (!newFormat.trim().isEmpty()) {
-                ebook.setFormat(newFormat);
-            }
+            newFormat = scanner.nextLine();
         }
 
+        lockCatalogForWrite();
+        try {
+            // Move only this book's index entries; the store moves its own
+            if (store == null) {
+                removeBookFromIndices(target, target.getTitle(), target.getAuthor(), target.getIsbn());
+            }
+            if (!newTitle.trim().isEmpty()) {
+                target.setTitle(newTitle);
+            }
+            if (!newAuthor.trim().isEmpty()) {
+                target.setAuthor(newAuthor);
+            }
+            if (!newIsbn.trim().isEmpty()) {
+                target.setIsbn(newIsbn);
+            }
+            if (newCopies != -1) {
+                target.setCopies(newCopies);
+            }
+            if (newYear != -1) {
+                target.setYear(newYear);
+            }
+            if (target instanceof EBook) {
+                EBook ebook = (EBook) target;
+                if (newFileSize != -1) {
+                    ebook.setFileSize(newFileSize);
+                }
+                if (!newFormat.trim().isEmpty()) {
+                    ebook.setFormat(newFormat);
+                }
+            } else if (hasEBookFields) {
+                MappedBookStore.BookView view = (MappedBookStore.BookView) target;
+                if (newFileSize != -1) {
+                    view.setFileSize(newFileSize);
+                }
+                if (!newFormat.trim().isEmpty()) {
+                    view.setFormat(newFormat);
+                }
+            }
+            if (store == null) {
+                addBookToIndices(target);
+                availableBooks.refresh(target);
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
         System.out.println("Libro actualizado exitosamente!");
-        rebuildBookIndices();
-        saveBooksToFile();
+        persister.booksChanged();
     }
 
     public void searchBook() {
         System.out.println("Ingrese el título o autor del libro a buscar:");
         String query = scanner.nextLine().toLowerCase();
 
-        // Use stream to search for books by title or author
-        List<Book> results = bookInventory.stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(query) ||
-                        book.getAuthor().toLowerCase().contains(query))
-                .collect(Collectors.toList());
+        List<Book> results = readLocked(() -> search(query, BookSearchIndex.Field.ANY));
 
         if (results.isEmpty()) {
             System.out.println("No se encontraron libros que coincidan con la búsqueda: " + query);
@@ -747,7 +1292,7 @@ public class LibraryManagementSystem implements BookManager {
         try {
             System.out.println("Ingrese el ID numérico para el nuevo usuario:");
             int id = Integer.parseInt(scanner.nextLine());
-            if (patronIndex.containsKey(id)) {
+            if (findPatron(id) != null) {
                 System.out.println("Ya existe un usuario con ese ID. Operación cancelada.");
                 return;
             }
@@ -756,9 +1301,11 @@ public class LibraryManagementSystem implements BookManager {
             System.out.println("Ingrese la información de contacto del usuario:");
             String contact = scanner.nextLine();
             Patron newPatron = new Patron(name, id, contact);
-            patrons.add(newPatron);
-            patronIndex.put(id, newPatron);
-            savePatronsToFile();
+            synchronized (this) {
+                patrons.add(newPatron);
+                patronIndex.put(id, newPatron);
+            }
+            persister.patronsChanged();
             System.out.println("¡Usuario registrado exitosamente!");
         } catch (NumberFormatException e) {
             System.out.println("Error al parsear el ID del usuario.");
@@ -805,8 +1352,10 @@ public class LibraryManagementSystem implements BookManager {
             target.setContact(newContact);
         }
         System.out.println("Usuario actualizado exitosamente!");
-        patronIndex.put(targetId, target);
-        savePatronsToFile();
+        synchronized (this) {
+            patronIndex.put(targetId, target);
+        }
+        persister.patronsChanged();
     }
 
     public void removePatron() {
@@ -819,22 +1368,25 @@ public class LibraryManagementSystem implements BookManager {
             System.out.println("Operación cancelada.");
             return;
         }
-        Iterator<Patron> it = patrons.iterator();
         boolean found = false;
-        while (it.hasNext()) {
-            Patron p = it.next();
-            if (p.getId() == id) {
-                it.remove();
-                patronIndex.remove(id);
-                found = true;
-                System.out.println("Usuario eliminado exitosamente.");
-                break;
+        synchronized (this) {
+            Iterator<Patron> it = patrons.iterator();
+            while (it.hasNext()) {
+                Patron p = it.next();
+                if (p.getId() == id) {
+                    it.remove();
+                    patronIndex.remove(id);
+                    found = true;
+                    break;
+                }
             }
         }
-        if (!found) {
+        if (found) {
+            System.out.println("Usuario eliminado exitosamente.");
+        } else {
             System.out.println("No se encontró un usuario con ID " + id + ".");
         }
-        savePatronsToFile();
+        persister.patronsChanged();
     }
 
     public void searchPatron() {
@@ -847,12 +1399,13 @@ public class LibraryManagementSystem implements BookManager {
             System.out.println("Operación cancelada.");
             return;
         }
-        if (patronIndex.containsKey(id)) {
-            Patron p = patronIndex.get(id);
+        Patron p = findPatron(id);
+        if (p != null) {
             p.display();
-            if (borrowedBooks.containsKey(id) && !borrowedBooks.get(id).isEmpty()) {
+            PatronLoans loans = borrowedBooks.get(id);
+            if (loans != null && !loans.isEmpty()) {
                 System.out.println("Libros prestados por el usuario:");
-                for (Book b : borrowedBooks.get(id)) {
+                for (Book b : loans.toList()) {
                     b.display();
                 }
             } else {
@@ -863,6 +1416,10 @@ public class LibraryManagementSystem implements BookManager {
         }
     }
 
+    private synchronized Patron findPatron(int id) {
+        return patronIndex.get(id);
+    }
+
     public void booksPerPatron() {
         System.out.println("Ingrese el ID del usuario para ver los libros prestados:");
         int id;
@@ -873,8 +1430,9 @@ public class LibraryManagementSystem implements BookManager {
             System.out.println("Operación cancelada.");
             return;
         }
-        if (borrowedBooks.containsKey(id)) {
-            List<Book> list = borrowedBooks.get(id);
+        PatronLoans loans = borrowedBooks.get(id);
+        if (loans != null) {
+            List<Book> list = loans.toList();
             System.out.println("El usuario con ID " + id + " ha prestado " + list.size() + " libro(s):");
             for (Book b : list) {
                 b.display();
@@ -915,120 +1473,300 @@ public class LibraryManagementSystem implements BookManager {
         System.out.println("Por favor ejecute: java SimulationMain");
     }
 
+    /**
+     * Durability barrier: writes any pending books/patrons changes and forces
+     * the journal, so everything done before the call is on disk.
+     */
+    public void flush() {
+        persister.flush();
+        if (store != null) {
+            store.flush();
+        }
+        if (journal != null) {
+            try {
+                journal.force();
+            } catch (IOException e) {
+                System.out.println("Error al sincronizar el diario de préstamos.");
+            }
+        }
+    }
+
+    /**
+     * Flushes pending changes and stops the background writers
+     */
+    @Override
+    public void close() {
+        eventLog.close();
+        persister.close();
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdown();
+            try {
+                compactionExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Error al cerrar el diario de préstamos.");
+            }
+        }
+        if (store != null) {
+            // Leave a current copy of the mapped catalog in the books file
+            exportBooksFile();
+        }
+        closeStore();
+    }
+
+    /**
+     * @return Log that receives the borrow and return messages
+     */
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * @return Timers and counters, empty unless -Dlibrary.metrics=true
+     */
+    public LibraryMetrics getMetrics() {
+        return metrics;
+    }
+
     // Add these getter methods for thread-safe access
-    public synchronized List<Book> getBookInventory() {
-        return new ArrayList<>(bookInventory);
+    public List<Book> getBookInventory() {
+        return getBooks();
     }
 
-    public synchronized Map<Integer, List<Book>> getBorrowedBooks() {
-        return new HashMap<>(borrowedBooks);
+    public Map<Integer, List<Book>> getBorrowedBooks() {
+        Map<Integer, List<Book>> copy = new HashMap<>();
+        borrowedBooks.forEach((patronId, loans) -> copy.put(patronId, loans.toList()));
+        return copy;
     }
 
-    public synchronized boolean borrowBook(String bookTitle, int patronId) {
-        Book target = null;
-        for (Book b : bookInventory) {
-            if (b.getTitle().equalsIgnoreCase(bookTitle) && b.getCopies() > 0) {
-                target = b;
-                break;
+    public boolean borrowBook(String bookTitle, int patronId) {
+        long start = metrics.borrow.start();
+        long journalSequence;
+        lockCatalogForRead();
+        try {
+            journalSequence = borrowBookLocked(bookTitle, patronId);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        if (journalSequence < 0) {
+            metrics.borrowRejected.increment();
+        } else {
+            persistCopyChange(journalSequence);
+        }
+        metrics.borrow.stop(start);
+        return journalSequence >= 0;
+    }
+
+    // Returns -1 if the book could not be borrowed; caller holds the read lock
+    private long borrowBookLocked(String bookTitle, int patronId) {
+        for (Book b : booksWithTitle(bookTitle)) {
+            if (b.tryAcquireCopy()) {
+                if (b.getCopies() == 0) {
+                    refreshAvailability(b);
+                }
+                PatronLoans loans = borrowedBooks.getOrCreate(patronId);
+                loans.add(b);
+                // Capture the numbers now; the message may be built later
+                int remaining = b.getCopies();
+                int borrowed = loans.size();
+                eventLog.log(EventLog.Kind.BORROWED, EventLog.Level.INFO,
+                        () -> "\n[Simulación] Usuario " + patronId + " prestó exitosamente el libro '"
+                                + bookTitle + "'\n  - Copias restantes: " + remaining
+                                + "\n  - Libros prestados por el usuario: " + borrowed);
+                return recordCopyChange(b, -1);
             }
         }
-        if (target == null) {
-            System.out.println("\n[Simulación] Usuario " + patronId + " intentó prestar el libro '" + bookTitle
-                    + "' pero no está disponible.");
-            return false;
+        eventLog.log(EventLog.Kind.BORROW_REJECTED, EventLog.Level.INFO, () -> "\n[Simulación] Usuario " + patronId
+                + " intentó prestar el libro '" + bookTitle + "' pero no está disponible.");
+        return -1;
+    }
+
+    public boolean returnBook(String bookTitle, int patronId) {
+        long start = metrics.returns.start();
+        long journalSequence;
+        lockCatalogForRead();
+        try {
+            journalSequence = returnBookLocked(bookTitle, patronId);
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        borrowedBooks.putIfAbsent(patronId, new ArrayList<>());
-        borrowedBooks.get(patronId).add(target);
-        target.setCopies(target.getCopies() - 1);
-        System.out.println("\n[Simulación] Usuario " + patronId + " prestó exitosamente el libro '" + bookTitle + "'");
-        System.out.println("  - Copias restantes: " + target.getCopies());
-        System.out.println("  - Libros prestados por el usuario: " + borrowedBooks.get(patronId).size());
-        saveBooksToFile();
-        return true;
+        if (journalSequence < 0) {
+            metrics.returnRejected.increment();
+        } else {
+            persistCopyChange(journalSequence);
+        }
+        metrics.returns.stop(start);
+        return journalSequence >= 0;
     }
 
-    public synchronized boolean returnBook(String bookTitle, int patronId) {
-        if (!borrowedBooks.containsKey(patronId) || borrowedBooks.get(patronId).isEmpty()) {
-            System.out.println("\n[Simulación] Usuario " + patronId + " intentó devolver el libro '" + bookTitle
-                    + "' pero no tiene libros prestados.");
-            return false;
+    // Returns -1 if the patron does not have the book; caller holds the read lock
+    private long returnBookLocked(String bookTitle, int patronId) {
+        PatronLoans loans = borrowedBooks.get(patronId);
+        if (loans == null || loans.isEmpty()) {
+            eventLog.log(EventLog.Kind.RETURN_REJECTED, EventLog.Level.INFO, () -> "\n[Simulación] Usuario "
+                    + patronId + " intentó devolver el libro '" + bookTitle + "' pero no tiene libros prestados.");
+            return -1;
         }
 
-        List<Book> list = borrowedBooks.get(patronId);
-        Iterator<Book> it = list.iterator();
-        while (it.hasNext()) {
-            Book b = it.next();
-            if (b.getTitle().equalsIgnoreCase(bookTitle)) {
-                b.setCopies(b.getCopies() + 1);
-                it.remove();
-                System.out.println(
-                        "\n[Simulación] Usuario " + patronId + " devolvió exitosamente el libro '" + bookTitle + "'");
-                System.out.println("  - Copias disponibles: " + b.getCopies());
-                System.out.println("  - Libros prestados por el usuario: " + borrowedBooks.get(patronId).size());
-                saveBooksToFile();
-                return true;
-            }
+        Book b = loans.removeByTitle(bookTitle);
+        if (b == null) {
+            eventLog.log(EventLog.Kind.RETURN_REJECTED, EventLog.Level.INFO, () -> "\n[Simulación] Usuario "
+                    + patronId + " intentó devolver el libro '" + bookTitle + "' pero no lo tiene prestado.");
+            return -1;
         }
-        System.out.println("\n[Simulación] Usuario " + patronId + " intentó devolver el libro '" + bookTitle
-                + "' pero no lo tiene prestado.");
-        return false;
+        int available = b.releaseCopy();
+        if (available == 1) {
+            refreshAvailability(b);
+        }
+        int borrowed = loans.size();
+        eventLog.log(EventLog.Kind.RETURNED, EventLog.Level.INFO,
+                () -> "\n[Simulación] Usuario " + patronId + " devolvió exitosamente el libro '" + bookTitle
+                        + "'\n  - Copias disponibles: " + available + "\n  - Libros prestados por el usuario: "
+                        + borrowed);
+        return recordCopyChange(b, 1);
     }
 
     // --------------------------------
     // BookManager Interface Methods
     // --------------------------------
     @Override
-    public synchronized void addBook(Book book) {
-        bookInventory.add(book);
-        addBookToIndices(book);
-        saveBooksToFile();
+    public void addBook(Book book) {
+        lockCatalogForWrite();
+        try {
+            if (store != null) {
+                store.add(book);
+            } else {
+                bookInventory.add(book);
+                addBookToIndices(book);
+                availableBooks.refresh(book);
+                publishCatalog();
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        persister.booksChanged();
     }
 
+    /**
+     * Returns the current catalog without copying it. The list is immutable;
+     * books added or removed later are not reflected in it. With mapped
+     * storage it is a new list of views on every call, so use getBookCount
+     * when only the size is needed.
+     */
     @Override
     public List<Book> getBooks() {
-        return new ArrayList<>(bookInventory);
+        if (store == null) {
+            return catalogSnapshot;
+        }
+        return readLocked(() -> {
+            List<Book> books = new ArrayList<>(store.size());
+            store.forEach(books::add);
+            return Collections.unmodifiableList(books);
+        });
+    }
+
+    /**
+     * @return Number of books in the catalog
+     */
+    public int getBookCount() {
+        return store != null ? store.size() : catalogSnapshot.size();
+    }
+
+    /**
+     * Picks a random book that has a copy available, in constant time on the
+     * heap; the mapped store probes random slots instead
+     *
+     * @param random Source of randomness
+     * @return The book, or null if every copy is on loan
+     */
+    public Book pickAvailableBook(Random random) {
+        return store != null ? store.pickAvailable(random) : availableBooks.pickRandom(random);
+    }
+
+    /**
+     * @return Number of books with at least one copy available
+     */
+    public int getAvailableBookCount() {
+        return store != null ? store.countAvailable() : availableBooks.size();
     }
 
     @Override
     public List<Book> findBooksByAuthor(String author) {
-        // Using lambda expression to filter books by author (partial match)
-        return bookInventory.stream()
-                .filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()))
-                .collect(Collectors.toList());
+        // Partial match through the full-text index, best match first
+        return readLocked(() -> search(author, BookSearchIndex.Field.AUTHOR));
     }
 
     @Override
     public List<Book> sortBooksByTitle() {
-        // Using lambda expression to sort books by title
-        return bookInventory.stream()
-                .sorted((b1, b2) -> b1.getTitle().compareTo(b2.getTitle()))
-                .collect(Collectors.toList());
+        // Read from the maintained title order instead of sorting
+        return readLocked(() -> store != null ? sortedStoreBooks(b -> true, Book::getTitle, false)
+                : sortedViews.byTitle());
+    }
+
+    /**
+     * One page of the catalog ordered by title. The books before the offset
+     * are still walked; use sortBooksByTitleFrom for deep pages.
+     *
+     * @param offset Number of books to skip
+     * @param limit  Maximum number of books to return
+     * @return The page, possibly empty
+     */
+    public List<Book> sortBooksByTitle(int offset, int limit) {
+        return readLocked(() -> {
+            if (store == null) {
+                return sortedViews.byTitle(offset, limit);
+            }
+            List<Book> sorted = sortedStoreBooks(b -> true, Book::getTitle, false);
+            int from = Math.min(offset, sorted.size());
+            return new ArrayList<>(sorted.subList(from, Math.min(from + limit, sorted.size())));
+        });
+    }
+
+    /**
+     * One page of the catalog ordered by title, starting at the given title.
+     * Pass the title of the last book of the previous page (and skip the
+     * books already seen with that title) to read the next one; each page
+     * costs O(log n + limit) on the heap, however deep it is.
+     *
+     * @param fromTitle First title to include
+     * @param limit     Maximum number of books to return
+     * @return The page, possibly empty
+     */
+    public List<Book> sortBooksByTitleFrom(String fromTitle, int limit) {
+        return readLocked(() -> {
+            if (store == null) {
+                return sortedViews.byTitleFrom(fromTitle, limit);
+            }
+            List<Book> sorted = sortedStoreBooks(b -> b.getTitle().compareTo(fromTitle) >= 0, Book::getTitle, false);
+            return new ArrayList<>(sorted.subList(0, Math.min(limit, sorted.size())));
+        });
     }
 
     // Additional sorting methods using Java 8 features
 
     public List<Book> sortBooksByYearAscending() {
-        return bookInventory.stream()
-                .sorted((b1, b2) -> Integer.compare(b1.getYear(), b2.getYear()))
-                .collect(Collectors.toList());
+        return readLocked(() -> store != null ? sortedStoreBooks(b -> true, Book::getYear, false)
+                : sortedViews.byYearAscending());
     }
 
     public List<Book> sortBooksByYearDescending() {
-        return bookInventory.stream()
-                .sorted((b1, b2) -> Integer.compare(b2.getYear(), b1.getYear()))
-                .collect(Collectors.toList());
+        return readLocked(() -> store != null ? sortedStoreBooks(b -> true, Book::getYear, true)
+                : sortedViews.byYearDescending());
     }
 
     public List<Book> findBooksPublishedBefore(int year) {
-        return bookInventory.stream()
-                .filter(book -> book.getYear() < year)
-                .collect(Collectors.toList());
+        return readLocked(() -> store != null ? sortedStoreBooks(b -> b.getYear() < year, Book::getYear, false)
+                : sortedViews.publishedBefore(year));
     }
 
     public List<Book> findBooksByTitleContaining(String substring) {
-        return bookInventory.stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(substring.toLowerCase()))
-                .collect(Collectors.toList());
+        return readLocked(() -> search(substring, BookSearchIndex.Field.TITLE));
     }
 
     // New menu methods for Java 8 features
@@ -1038,9 +1776,7 @@ public class LibraryManagementSystem implements BookManager {
         System.out.println("Ingrese el nombre del autor:");
         String author = scanner.nextLine();
 
-        List<Book> books = bookInventory.stream()
-                .filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()))
-                .collect(Collectors.toList());
+        List<Book> books = findBooksByAuthor(author);
 
         if (books.isEmpty()) {
             System.out.println("No se encontraron libros del autor: " + author);
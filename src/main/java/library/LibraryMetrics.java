@@ -0,0 +1,212 @@
+package library;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Counters and latency histograms for the library's hot paths: borrow,
+ * return, searches, loading and saving the books file, and the time spent
+ * waiting for the catalog lock. When disabled, timers never read the clock
+ * and counters never write, so the cost is a branch on a final field.
+ */
+public class LibraryMetrics {
+
+    // Lock waits longer than this count as contended
+    private static final long CONTENDED_NANOS = 1000;
+
+    /**
+     * Measures one kind of operation into a LatencyHistogram
+     */
+    public static final class Timer {
+        private final boolean enabled;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return Value to pass to stop
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        public void stop(long start) {
+            if (enabled) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    public static final class Counter {
+        private final boolean enabled;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void increment() {
+            if (enabled) {
+                value.increment();
+            }
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<String, Timer> timers = new LinkedHashMap<>();
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+
+    final Timer borrow;
+    final Timer returns;
+    // Searches, sorted views and ISBN lookups
+    final Timer search;
+    final Timer load;
+    final Timer save;
+    final Timer readLockWait;
+    final Timer writeLockWait;
+    final Counter borrowRejected;
+    final Counter returnRejected;
+    final Counter readLockContended;
+    final Counter writeLockContended;
+
+    public LibraryMetrics(boolean enabled) {
+        this.enabled = enabled;
+        borrow = timer("borrow");
+        returns = timer("return");
+        search = timer("search");
+        load = timer("load");
+        save = timer("save");
+        readLockWait = timer("readLockWait");
+        writeLockWait = timer("writeLockWait");
+        borrowRejected = counter("borrowRejected");
+        returnRejected = counter("returnRejected");
+        readLockContended = counter("readLockContended");
+        writeLockContended = counter("writeLockContended");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param name e.g. "borrow" or "readLockWait"
+     * @return The timer, or null if there is none with that name
+     */
+    public Timer getTimer(String name) {
+        return timers.get(name);
+    }
+
+    /**
+     * @param name e.g. "borrowRejected"
+     * @return The counter, or null if there is none with that name
+     */
+    public Counter getCounter(String name) {
+        return counters.get(name);
+    }
+
+    /**
+     * Takes the lock, recording how long it took to get it
+     */
+    void lock(Lock lock, Timer wait, Counter contended) {
+        if (!enabled) {
+            lock.lock();
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        wait.histogram.record(waited);
+        if (waited > CONTENDED_NANOS) {
+            contended.increment();
+        }
+    }
+
+    /**
+     * Starts every timer and counter again from zero
+     */
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.histogram.reset();
+        }
+        for (Counter counter : counters.values()) {
+            counter.value.reset();
+        }
+    }
+
+    /**
+     * @return One line per timer and counter, durations in microseconds
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder("--- Métricas ---\n");
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            LatencyHistogram h = entry.getValue().histogram;
+            text.append(String.format(Locale.ROOT,
+                    "%-18s n=%d media=%s p50=%s p90=%s p99=%s p99.9=%s max=%s%n", entry.getKey(), h.getCount(),
+                    micros(h.getMean()), micros(h.getValueAtPercentile(50)), micros(h.getValueAtPercentile(90)),
+                    micros(h.getValueAtPercentile(99)), micros(h.getValueAtPercentile(99.9)),
+                    micros(h.getMax())));
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            text.append(String.format(Locale.ROOT, "%-18s %d%n", entry.getKey(), entry.getValue().get()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return The same values as toText as a JSON object, durations in
+     *         nanoseconds
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"enabled\":").append(enabled).append(",\"timers\":{");
+        String separator = "";
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            LatencyHistogram h = entry.getValue().histogram;
+            json.append(separator).append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(h.getCount())
+                    .append(",\"meanNanos\":").append(Math.round(h.getMean()))
+                    .append(",\"p50Nanos\":").append(h.getValueAtPercentile(50))
+                    .append(",\"p90Nanos\":").append(h.getValueAtPercentile(90))
+                    .append(",\"p99Nanos\":").append(h.getValueAtPercentile(99))
+                    .append(",\"p999Nanos\":").append(h.getValueAtPercentile(99.9))
+                    .append(",\"maxNanos\":").append(h.getMax())
+                    .append('}');
+            separator = ",";
+        }
+        json.append("},\"counters\":{");
+        separator = "";
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().get());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    private Timer timer(String name) {
+        Timer timer = new Timer(enabled);
+        timers.put(name, timer);
+        return timer;
+    }
+
+    private Counter counter(String name) {
+        Counter counter = new Counter(enabled);
+        counters.put(name, counter);
+        return counter;
+    }
+
+    private static String micros(double nanos) {
+        return String.format(Locale.ROOT, "%.1fµs", nanos / 1000);
+    }
+}
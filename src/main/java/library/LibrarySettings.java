@@ -0,0 +1,329 @@
+package library;
+
+/**
+ * Configuration for a LibraryManagementSystem instance.
+ * Defaults match the original behaviour (full rewrite of books.txt on every
+ * change) and can be overridden through system properties, e.g.
+ * -Dlibrary.persistence=journal
+ */
+public class LibrarySettings {
+
+    /**
+     * How book copy counts are persisted
+     */
+    public enum PersistenceMode {
+        SNAPSHOT, // rewrite the whole books file on every change
+        JOURNAL // append copy-count deltas to a journal, compact in background
+    }
+
+    /**
+     * Encoding used when the books file is saved; either one is read back
+     */
+    public enum BooksFormat {
+        TEXT, // pipe-delimited lines
+        BINARY // compact snapshot, see BinaryCatalogFile
+    }
+
+    /**
+     * Where the catalog's books are kept while the library runs
+     */
+    public enum Storage {
+        HEAP, // Book objects with in-memory indices, loaded from the books file
+        MAPPED // off-heap MappedBookStore next to the books file, see getStoreFile
+    }
+
+    /**
+     * How SimulationMain runs its patrons
+     */
+    public enum SimulationMode {
+        THREADS, // one platform thread per patron
+        VIRTUAL, // one virtual thread per patron (JDK 21+), else SCHEDULED
+        SCHEDULED, // patrons are timers on a small scheduler pool
+        DISCRETE // virtual clock and seeded randomness, see DiscreteEventSimulation
+    }
+
+    private String booksFile = "books.txt";
+    private BooksFormat booksFormat = BooksFormat.TEXT;
+    private String patronsFile = "patrons.txt";
+    private PersistenceMode persistenceMode = PersistenceMode.SNAPSHOT;
+    private Storage storage = Storage.HEAP;
+    private BookJournal.SyncPolicy journalSyncPolicy = BookJournal.SyncPolicy.GROUP;
+    private int journalCompactionThreshold = 10000;
+    private long flushIntervalMillis = 0;
+    private int flushMaxMutations = 100;
+    private SimulationMode simulationMode = SimulationMode.THREADS;
+    private int simulationWorkers = Runtime.getRuntime().availableProcessors();
+    private long simulationSeed = 42;
+    private EventLog.Mode logMode = EventLog.Mode.CONSOLE;
+    private EventLog.Level logLevel = EventLog.Level.DEBUG;
+    private int logSampleRate = 1;
+    private int logBufferSize = 8192;
+    private boolean metricsEnabled = false;
+    private long metricsReportIntervalMillis = 10000;
+
+    /**
+     * Builds the settings from the library.* system properties
+     *
+     * @return Settings with any overrides applied
+     */
+    public static LibrarySettings fromSystemProperties() {
+        return new LibrarySettings().applySystemProperties();
+    }
+
+    /**
+     * Overrides these settings with any library.* system properties, so
+     * callers can start from their own defaults
+     *
+     * @return This settings object
+     */
+    public LibrarySettings applySystemProperties() {
+        setBooksFile(System.getProperty("library.books.file", getBooksFile()));
+        setPatronsFile(System.getProperty("library.patrons.file", getPatronsFile()));
+
+        String format = System.getProperty("library.books.format");
+        if (format != null) {
+            setBooksFormat(BooksFormat.valueOf(format.trim().toUpperCase()));
+        }
+        String mode = System.getProperty("library.persistence");
+        if (mode != null) {
+            setPersistenceMode(PersistenceMode.valueOf(mode.trim().toUpperCase()));
+        }
+        String storage = System.getProperty("library.storage");
+        if (storage != null) {
+            setStorage(Storage.valueOf(storage.trim().toUpperCase()));
+        }
+        String sync = System.getProperty("library.journal.sync");
+        if (sync != null) {
+            setJournalSyncPolicy(BookJournal.SyncPolicy.valueOf(sync.trim().toUpperCase()));
+        }
+        setJournalCompactionThreshold(
+                Integer.getInteger("library.journal.compactionThreshold", getJournalCompactionThreshold()));
+        setFlushIntervalMillis(Long.getLong("library.flush.intervalMs", getFlushIntervalMillis()));
+        setFlushMaxMutations(Integer.getInteger("library.flush.maxMutations", getFlushMaxMutations()));
+        String simulation = System.getProperty("library.simulation.mode");
+        if (simulation != null) {
+            setSimulationMode(SimulationMode.valueOf(simulation.trim().toUpperCase()));
+        }
+        setSimulationWorkers(Integer.getInteger("library.simulation.workers", getSimulationWorkers()));
+        setSimulationSeed(Long.getLong("library.simulation.seed", getSimulationSeed()));
+        String logMode = System.getProperty("library.log.mode");
+        if (logMode != null) {
+            setLogMode(EventLog.Mode.valueOf(logMode.trim().toUpperCase()));
+        }
+        String logLevel = System.getProperty("library.log.level");
+        if (logLevel != null) {
+            setLogLevel(EventLog.Level.valueOf(logLevel.trim().toUpperCase()));
+        }
+        setLogSampleRate(Integer.getInteger("library.log.sample", getLogSampleRate()));
+        setLogBufferSize(Integer.getInteger("library.log.buffer", getLogBufferSize()));
+        setMetricsEnabled(Boolean.parseBoolean(
+                System.getProperty("library.metrics", String.valueOf(isMetricsEnabled()))));
+        setMetricsReportIntervalMillis(
+                Long.getLong("library.metrics.reportIntervalMs", getMetricsReportIntervalMillis()));
+        return this;
+    }
+
+    public String getBooksFile() {
+        return booksFile;
+    }
+
+    public void setBooksFile(String booksFile) {
+        this.booksFile = booksFile;
+    }
+
+    public BooksFormat getBooksFormat() {
+        return booksFormat;
+    }
+
+    public void setBooksFormat(BooksFormat booksFormat) {
+        this.booksFormat = booksFormat;
+    }
+
+    public String getPatronsFile() {
+        return patronsFile;
+    }
+
+    public void setPatronsFile(String patronsFile) {
+        this.patronsFile = patronsFile;
+    }
+
+    /**
+     * The journal lives next to the books file, e.g. books.txt.journal
+     *
+     * @return Path of the copy-count journal
+     */
+    public String getJournalFile() {
+        return booksFile + ".journal";
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    public void setPersistenceMode(PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public void setStorage(Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * The mapped store lives next to the books file, e.g. books.txt.store.slots
+     *
+     * @return Path prefix of the MappedBookStore files
+     */
+    public String getStoreFile() {
+        return booksFile + ".store";
+    }
+
+    public BookJournal.SyncPolicy getJournalSyncPolicy() {
+        return journalSyncPolicy;
+    }
+
+    public void setJournalSyncPolicy(BookJournal.SyncPolicy journalSyncPolicy) {
+        this.journalSyncPolicy = journalSyncPolicy;
+    }
+
+    public int getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+
+    /**
+     * Number of journal records after which a background compaction
+     * rewrites the books file and truncates the journal
+     *
+     * @param journalCompactionThreshold Records between compactions
+     */
+    public void setJournalCompactionThreshold(int journalCompactionThreshold) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Maximum time a change may wait before the books/patrons files are
+     * rewritten. 0 writes every change immediately.
+     *
+     * @param flushIntervalMillis Write-behind interval in milliseconds
+     */
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public int getFlushMaxMutations() {
+        return flushMaxMutations;
+    }
+
+    /**
+     * Number of pending changes that triggers a write before the interval ends
+     *
+     * @param flushMaxMutations Changes per forced flush
+     */
+    public void setFlushMaxMutations(int flushMaxMutations) {
+        this.flushMaxMutations = flushMaxMutations;
+    }
+
+    public SimulationMode getSimulationMode() {
+        return simulationMode;
+    }
+
+    public void setSimulationMode(SimulationMode simulationMode) {
+        this.simulationMode = simulationMode;
+    }
+
+    public int getSimulationWorkers() {
+        return simulationWorkers;
+    }
+
+    /**
+     * Scheduler threads that drive the patrons in SCHEDULED mode
+     *
+     * @param simulationWorkers Number of threads
+     */
+    public void setSimulationWorkers(int simulationWorkers) {
+        this.simulationWorkers = simulationWorkers;
+    }
+
+    public long getSimulationSeed() {
+        return simulationSeed;
+    }
+
+    /**
+     * Seed of the DISCRETE simulation; the same seed replays the same run
+     *
+     * @param simulationSeed Random seed
+     */
+    public void setSimulationSeed(long simulationSeed) {
+        this.simulationSeed = simulationSeed;
+    }
+
+    public EventLog.Mode getLogMode() {
+        return logMode;
+    }
+
+    public void setLogMode(EventLog.Mode logMode) {
+        this.logMode = logMode;
+    }
+
+    public EventLog.Level getLogLevel() {
+        return logLevel;
+    }
+
+    public void setLogLevel(EventLog.Level logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    public int getLogSampleRate() {
+        return logSampleRate;
+    }
+
+    /**
+     * Prints about one in this many lending messages; counters still see all
+     *
+     * @param logSampleRate 1 to print every message
+     */
+    public void setLogSampleRate(int logSampleRate) {
+        this.logSampleRate = logSampleRate;
+    }
+
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public void setLogBufferSize(int logBufferSize) {
+        this.logBufferSize = logBufferSize;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Turns on the latency histograms and counters in LibraryMetrics
+     *
+     * @param metricsEnabled False to skip all measuring
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public long getMetricsReportIntervalMillis() {
+        return metricsReportIntervalMillis;
+    }
+
+    /**
+     * How often SimulationMain prints the metrics while it runs
+     *
+     * @param metricsReportIntervalMillis Interval, 0 to print only at the end
+     */
+    public void setMetricsReportIntervalMillis(long metricsReportIntervalMillis) {
+        this.metricsReportIntervalMillis = metricsReportIntervalMillis;
+    }
+}
@@ -0,0 +1,916 @@
+package library;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Catalog storage engine that keeps books outside the Java heap; selected
+ * with -Dlibrary.storage=mapped.
+ * Records live in fixed-width 64-byte slots of a memory-mapped file, their
+ * strings in a mapped append-only string heap, and the ISBN and title lookup
+ * tables in two more mapped files. Books are handed out as {@link BookView}
+ * flyweights that read and write the mapped records, so heap usage does not
+ * grow with the catalog, and opening an existing store only maps its files
+ * instead of parsing them.
+ *
+ * <pre>
+ * &lt;base&gt;.slots    64-byte header, then one slot per book:
+ *                 flags, copies, year, title/author/isbn/format refs, file size
+ * &lt;base&gt;.strings  length-prefixed UTF-8 strings, never spanning a segment
+ * &lt;base&gt;.isbn     open-addressing table of slot + 1 (0 empty, -1 removed)
+ * &lt;base&gt;.titles   the same for lower-case titles, one entry per book
+ * </pre>
+ *
+ * A slot number identifies a book for as long as it is stored, and views of
+ * the same slot are equal, so callers key their own structures by slot.
+ * Changed strings are appended and the old bytes are left behind.
+ * Structural changes take the write side of a read/write lock and lookups
+ * the read side; each slot's fields are guarded by one of a fixed set of
+ * lock stripes. Call {@link #flush()} to force the files to disk.
+ */
+public class MappedBookStore implements Closeable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+
+    private static final int MAGIC = 0x4C424B4D; // "LBKM"
+    private static final int VERSION = 2;
+    private static final int SLOT = 64;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+    private static final long NULL_REF = -1;
+    // Random slots tried before pickAvailable falls back to a scan
+    private static final int RANDOM_PROBES = 32;
+
+    // Header fields in the slots file
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_SEGMENT = 8;
+    private static final int H_SLOTS = 12;
+    private static final int H_LIVE = 16;
+    private static final int H_ISBN_TABLE = 20; // capacity, used, entries
+    private static final int H_HEAP_END = 32;
+    private static final int H_TITLE_TABLE = 40; // capacity, used, entries
+
+    // Slot fields
+    private static final int S_FLAGS = 0;
+    private static final int S_COPIES = 4;
+    private static final int S_YEAR = 8;
+    private static final int S_TITLE = 16;
+    private static final int S_AUTHOR = 24;
+    private static final int S_ISBN = 32;
+    private static final int S_FORMAT = 40;
+    private static final int S_FILE_SIZE = 48;
+
+    private static final byte LIVE = 1;
+    private static final byte EBOOK = 2;
+
+    private final Region slots;
+    private final Region strings;
+    // First book with an ISBN wins, as in LibraryManagementSystem's index
+    private final SlotTable isbnTable;
+    // Every book, so all the copies of a title are found
+    private final SlotTable titleTable;
+    private final ReadWriteLock structure = new ReentrantReadWriteLock();
+    private final Object[] stripes = new Object[64];
+
+    // Guarded by structure
+    private int slotCount;
+    private int liveCount;
+    private long heapEnd;
+
+    private MappedBookStore(Path base, int segmentSize) throws IOException {
+        Path slotsFile = Paths.get(base + ".slots");
+        int existingSegment = readSegmentSize(slotsFile);
+        int segment = existingSegment > 0 ? existingSegment : segmentSize;
+        if (segment < SLOT || segment % SLOT != 0) {
+            throw new IllegalArgumentException("Segment size must be a multiple of " + SLOT);
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        slots = new Region(slotsFile, segment);
+        strings = new Region(Paths.get(base + ".strings"), segment);
+        isbnTable = new SlotTable(new Region(Paths.get(base + ".isbn"), segment), H_ISBN_TABLE, S_ISBN, true,
+                LibraryManagementSystem::normalizeIsbn);
+        titleTable = new SlotTable(new Region(Paths.get(base + ".titles"), segment), H_TITLE_TABLE, S_TITLE, false,
+                String::toLowerCase);
+        slots.ensure(SLOT);
+        if (existingSegment > 0) {
+            slotCount = slots.getInt(H_SLOTS);
+            liveCount = slots.getInt(H_LIVE);
+            heapEnd = slots.getLong(H_HEAP_END);
+            isbnTable.readHeader();
+            titleTable.readHeader();
+        } else {
+            slots.putInt(H_MAGIC, MAGIC);
+            slots.putInt(H_VERSION, VERSION);
+            slots.putInt(H_SEGMENT, segment);
+            isbnTable.reset(INITIAL_INDEX_CAPACITY);
+            titleTable.reset(INITIAL_INDEX_CAPACITY);
+            writeHeader();
+        }
+    }
+
+    /**
+     * Opens the store at the given base path, creating it if needed
+     *
+     * @param base Path prefix of the .slots, .strings, .isbn and .titles files
+     * @return The open store
+     */
+    public static MappedBookStore open(Path base) throws IOException {
+        return new MappedBookStore(base, DEFAULT_SEGMENT_SIZE);
+    }
+
+    static MappedBookStore open(Path base, int segmentSize) throws IOException {
+        return new MappedBookStore(base, segmentSize);
+    }
+
+    /**
+     * @param base Path prefix of the store files
+     * @return True if a store was created at the base path, including one
+     *         that can no longer be opened
+     */
+    public static boolean exists(Path base) {
+        try {
+            return readSegmentSize(Paths.get(base + ".slots")) > 0;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Copies a book into the store. If an earlier book has the same ISBN it
+     * keeps the ISBN lookup, as in the in-memory catalog.
+     *
+     * @param book Book or EBook to store
+     * @return View of the stored copy
+     */
+    public BookView add(Book book) {
+        structure.writeLock().lock();
+        try {
+            int slot = slotCount;
+            long at = slotOffset(slot);
+            slots.ensure(at + SLOT);
+            boolean ebook = book instanceof EBook;
+            slots.putLong(at + S_TITLE, appendString(book.getTitle()));
+            slots.putLong(at + S_AUTHOR, appendString(book.getAuthor()));
+            slots.putLong(at + S_ISBN, appendString(book.getIsbn()));
+            slots.putLong(at + S_FORMAT, appendString(ebook ? ((EBook) book).getFormat() : null));
+            slots.putDouble(at + S_FILE_SIZE, ebook ? ((EBook) book).getFileSize() : 0);
+            slots.putInt(at + S_COPIES, book.getCopies());
+            slots.putInt(at + S_YEAR, book.getYear());
+            synchronized (stripe(slot)) {
+                slots.put(at + S_FLAGS, ebook ? LIVE | EBOOK : LIVE);
+            }
+            slotCount++;
+            liveCount++;
+            isbnTable.put(book.getIsbn(), slot);
+            titleTable.put(book.getTitle(), slot);
+            writeHeader();
+            return new BookView(slot);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads every book of a books file, text or binary
+     *
+     * @param booksFile File written by LibraryManagementSystem
+     * @return Number of books added
+     */
+    public int importBooks(Path booksFile) throws IOException {
+        return importBooks(booksFile, sequence -> { });
+    }
+
+    /**
+     * Same as importBooks(Path), also reporting the file's journal marker
+     *
+     * @param journal Receives the journal sequence, if the file has one
+     */
+    public int importBooks(Path booksFile, LongConsumer journal) throws IOException {
+        int before = size();
+        if (BinaryCatalogFile.isBinary(booksFile)) {
+            BinaryCatalogFile.read(booksFile, this::add, journal);
+        } else {
+            new CatalogFileParser().parseBooks(booksFile, this::add, journal);
+        }
+        return size() - before;
+    }
+
+    /**
+     * @param slot Slot number
+     * @return View of the book in the slot, or null if there is none
+     */
+    public BookView get(int slot) {
+        if (slot < 0 || slot >= slotCount()) {
+            return null;
+        }
+        return isLive(slot) ? new BookView(slot) : null;
+    }
+
+    /**
+     * @param isbn ISBN, compared like LibraryManagementSystem does
+     * @return View of the book, or null if no book has the ISBN
+     */
+    public BookView findByIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        structure.readLock().lock();
+        try {
+            List<Integer> found = isbnTable.find(isbn);
+            return found.isEmpty() ? null : new BookView(found.get(0));
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param title Title, compared ignoring case
+     * @return Views of every book with the title, in the order they were added
+     */
+    public List<Book> findByTitle(String title) {
+        List<Book> books = new ArrayList<>();
+        if (title == null) {
+            return books;
+        }
+        structure.readLock().lock();
+        try {
+            List<Integer> found = titleTable.find(title);
+            found.sort(null);
+            for (int slot : found) {
+                books.add(new BookView(slot));
+            }
+            return books;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of the book; its space is not reused
+     *
+     * @param book A view from this store
+     * @return True if the book was still stored
+     */
+    public boolean remove(BookView book) {
+        structure.writeLock().lock();
+        try {
+            int slot = book.slot;
+            if (book.owner() != this || !isLive(slot)) {
+                return false;
+            }
+            isbnTable.remove(book.getIsbn(), slot);
+            titleTable.remove(book.getTitle(), slot);
+            synchronized (stripe(slot)) {
+                slots.put(slotOffset(slot) + S_FLAGS, (byte) 0);
+            }
+            liveCount--;
+            writeHeader();
+            return true;
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visits the stored books in insertion order
+     *
+     * @param action Receives a view of each book
+     */
+    public void forEach(Consumer<? super Book> action) {
+        int count = slotCount();
+        for (int slot = 0; slot < count; slot++) {
+            if (isLive(slot)) {
+                action.accept(new BookView(slot));
+            }
+        }
+    }
+
+    /**
+     * Picks a book with a copy available. A few random slots are tried first;
+     * when none of them has a copy, the slots are scanned from a random
+     * start, so books after a long run of unavailable ones are favoured.
+     *
+     * @param random Source of randomness
+     * @return The book, or null if every copy is on loan
+     */
+    public BookView pickAvailable(Random random) {
+        int count = slotCount();
+        if (count == 0) {
+            return null;
+        }
+        for (int i = 0; i < RANDOM_PROBES; i++) {
+            int slot = random.nextInt(count);
+            if (isAvailable(slot)) {
+                return new BookView(slot);
+            }
+        }
+        int start = random.nextInt(count);
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % count;
+            if (isAvailable(slot)) {
+                return new BookView(slot);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of books with at least one copy available; scans every
+     *         slot
+     */
+    public int countAvailable() {
+        int count = slotCount();
+        int available = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (isAvailable(slot)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * @return Number of books in the store
+     */
+    public int size() {
+        structure.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces every change to the files
+     */
+    public void flush() {
+        slots.force();
+        strings.force();
+        isbnTable.region.force();
+        titleTable.region.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        slots.close();
+        strings.close();
+        isbnTable.region.close();
+        titleTable.region.close();
+    }
+
+    private int slotCount() {
+        structure.readLock().lock();
+        try {
+            return slotCount;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    private boolean isLive(int slot) {
+        synchronized (stripe(slot)) {
+            return (slots.get(slotOffset(slot) + S_FLAGS) & LIVE) != 0;
+        }
+    }
+
+    private boolean isAvailable(int slot) {
+        long at = slotOffset(slot);
+        synchronized (stripe(slot)) {
+            return (slots.get(at + S_FLAGS) & LIVE) != 0 && slots.getInt(at + S_COPIES) > 0;
+        }
+    }
+
+    private Object stripe(int slot) {
+        return stripes[slot & (stripes.length - 1)];
+    }
+
+    private static long slotOffset(int slot) {
+        // Slot 0 is preceded by the header, which takes one slot's width
+        return (slot + 1L) * SLOT;
+    }
+
+    // Caller holds the write lock (or is still constructing)
+    private void writeHeader() {
+        slots.putInt(H_SLOTS, slotCount);
+        slots.putInt(H_LIVE, liveCount);
+        slots.putLong(H_HEAP_END, heapEnd);
+        isbnTable.writeHeader();
+        titleTable.writeHeader();
+    }
+
+    private static int readSegmentSize(Path slotsFile) throws IOException {
+        if (!Files.exists(slotsFile) || Files.size(slotsFile) < SLOT) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(SLOT);
+        try (FileChannel channel = FileChannel.open(slotsFile, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+        }
+        if (header.getInt(H_MAGIC) == 0) {
+            return 0;
+        }
+        if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION) {
+            throw new IOException("Not a book store: " + slotsFile);
+        }
+        return header.getInt(H_SEGMENT);
+    }
+
+    // Caller holds the write lock
+    private long appendString(String s) {
+        if (s == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int length = 4 + bytes.length;
+        if (length > strings.segmentSize) {
+            throw new IllegalArgumentException("String too long for the store: " + bytes.length + " bytes");
+        }
+        long at = heapEnd;
+        if (at / strings.segmentSize != (at + length - 1) / strings.segmentSize) {
+            at = (at / strings.segmentSize + 1) * strings.segmentSize;
+        }
+        strings.ensure(at + length);
+        strings.putInt(at, bytes.length);
+        strings.putBytes(at + 4, bytes);
+        heapEnd = at + length;
+        return at;
+    }
+
+    private String readString(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        byte[] bytes = new byte[strings.getInt(ref)];
+        strings.getBytes(ref + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String stringField(int slot, int field) {
+        long ref;
+        synchronized (stripe(slot)) {
+            ref = slots.getLong(slotOffset(slot) + field);
+        }
+        // String bytes never change once written
+        return readString(ref);
+    }
+
+    private void setStringField(int slot, int field, String value) {
+        structure.writeLock().lock();
+        try {
+            SlotTable table = field == S_ISBN ? isbnTable : field == S_TITLE ? titleTable : null;
+            boolean reindex = table != null && isLive(slot);
+            if (reindex) {
+                table.remove(stringField(slot, field), slot);
+            }
+            long ref = appendString(value);
+            synchronized (stripe(slot)) {
+                slots.putLong(slotOffset(slot) + field, ref);
+            }
+            if (reindex) {
+                table.put(value, slot);
+            }
+            writeHeader();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Open-addressing table from a string field to slots, in its own mapped
+     * file. Entries hold slot + 1, 0 for never used and -1 for removed;
+     * several entries may share a key unless the table is unique. Callers
+     * hold the write lock to change it and the read lock to search it.
+     */
+    private final class SlotTable {
+        private final Region region;
+        private final int headerAt;
+        private final int field;
+        private final boolean unique;
+        private final Function<String, String> normalizer;
+
+        private int capacity;
+        // Non-empty entries, including removed ones, and live entries
+        private int used;
+        private int entries;
+
+        SlotTable(Region region, int headerAt, int field, boolean unique, Function<String, String> normalizer) {
+            this.region = region;
+            this.headerAt = headerAt;
+            this.field = field;
+            this.unique = unique;
+            this.normalizer = normalizer;
+        }
+
+        void readHeader() {
+            capacity = slots.getInt(headerAt);
+            used = slots.getInt(headerAt + 4);
+            entries = slots.getInt(headerAt + 8);
+        }
+
+        void writeHeader() {
+            slots.putInt(headerAt, capacity);
+            slots.putInt(headerAt + 4, used);
+            slots.putInt(headerAt + 8, entries);
+        }
+
+        void reset(int newCapacity) {
+            region.ensure(newCapacity * 4L);
+            region.zero(0, newCapacity * 4L);
+            capacity = newCapacity;
+            used = 0;
+            entries = 0;
+        }
+
+        /**
+         * @return Slots whose field matches the value, in probe order
+         */
+        List<Integer> find(String value) {
+            String key = normalizer.apply(value);
+            List<Integer> found = new ArrayList<>(1);
+            int mask = capacity - 1;
+            for (int i = mix(key.hashCode()) & mask;; i = (i + 1) & mask) {
+                int entry = region.getInt(i * 4L);
+                if (entry == 0) {
+                    return found;
+                }
+                if (entry > 0 && matches(entry - 1, key)) {
+                    found.add(entry - 1);
+                    if (unique) {
+                        return found;
+                    }
+                }
+            }
+        }
+
+        void put(String value, int slot) {
+            if (value == null) {
+                return;
+            }
+            if ((used + 1) * 2L > capacity) {
+                // Grow when mostly live, otherwise just sweep out removed entries
+                rebuild(entries * 4L >= capacity ? capacity * 2 : capacity, slot);
+            }
+            if (!unique || find(value).isEmpty()) {
+                insert(value, slot);
+            }
+        }
+
+        private void insert(String value, int slot) {
+            int mask = capacity - 1;
+            for (int i = mix(normalizer.apply(value).hashCode()) & mask;; i = (i + 1) & mask) {
+                int entry = region.getInt(i * 4L);
+                if (entry <= 0) {
+                    if (entry == 0) {
+                        used++;
+                    }
+                    region.putInt(i * 4L, slot + 1);
+                    entries++;
+                    return;
+                }
+            }
+        }
+
+        void remove(String value, int slot) {
+            if (value == null) {
+                return;
+            }
+            int mask = capacity - 1;
+            for (int i = mix(normalizer.apply(value).hashCode()) & mask;; i = (i + 1) & mask) {
+                int entry = region.getInt(i * 4L);
+                if (entry == 0) {
+                    return;
+                }
+                if (entry == slot + 1) {
+                    region.putInt(i * 4L, -1);
+                    entries--;
+                    return;
+                }
+            }
+        }
+
+        private boolean matches(int slot, String key) {
+            String value = stringField(slot, field);
+            return value != null && normalizer.apply(value).equals(key);
+        }
+
+        // Re-inserts every live book but the one being put, which also drops
+        // the removed markers
+        private void rebuild(int newCapacity, int skip) {
+            reset(newCapacity);
+            for (int slot = 0; slot < slotCount; slot++) {
+                String value = slot == skip || !isLive(slot) ? null : stringField(slot, field);
+                if (value != null && (!unique || find(value).isEmpty())) {
+                    insert(value, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flyweight view of one stored book. Getters read the mapped record and
+     * setters write it, so changes are seen by every view of the same slot.
+     */
+    public final class BookView extends Book {
+
+        private final int slot;
+
+        private BookView(int slot) {
+            super(null, null, null, 0, 0);
+            this.slot = slot;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        private MappedBookStore owner() {
+            return MappedBookStore.this;
+        }
+
+        /**
+         * Views are equal when they show the same slot of the same store
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BookView)) {
+                return false;
+            }
+            BookView other = (BookView) o;
+            return other.owner() == owner() && other.slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return slot;
+        }
+
+        @Override
+        public String getTitle() {
+            return stringField(slot, S_TITLE);
+        }
+
+        @Override
+        public void setTitle(String newTitle) {
+            setStringField(slot, S_TITLE, newTitle);
+        }
+
+        @Override
+        public String getAuthor() {
+            return stringField(slot, S_AUTHOR);
+        }
+
+        @Override
+        public void setAuthor(String newAuthor) {
+            setStringField(slot, S_AUTHOR, newAuthor);
+        }
+
+        @Override
+        public String getIsbn() {
+            return stringField(slot, S_ISBN);
+        }
+
+        @Override
+        public void setIsbn(String newIsbn) {
+            setStringField(slot, S_ISBN, newIsbn);
+        }
+
+        @Override
+        public int getCopies() {
+            synchronized (stripe(slot)) {
+                return slots.getInt(slotOffset(slot) + S_COPIES);
+            }
+        }
+
+        @Override
+        public void setCopies(int newCopies) {
+            synchronized (stripe(slot)) {
+                slots.putInt(slotOffset(slot) + S_COPIES, newCopies);
+            }
+        }
+
+        @Override
+        public boolean tryAcquireCopy() {
+            synchronized (stripe(slot)) {
+                int copies = slots.getInt(slotOffset(slot) + S_COPIES);
+                if (copies <= 0) {
+                    return false;
+                }
+                slots.putInt(slotOffset(slot) + S_COPIES, copies - 1);
+                return true;
+            }
+        }
+
+        @Override
+        public int releaseCopy() {
+            synchronized (stripe(slot)) {
+                int copies = slots.getInt(slotOffset(slot) + S_COPIES) + 1;
+                slots.putInt(slotOffset(slot) + S_COPIES, copies);
+                return copies;
+            }
+        }
+
+        @Override
+        public int getYear() {
+            synchronized (stripe(slot)) {
+                return slots.getInt(slotOffset(slot) + S_YEAR);
+            }
+        }
+
+        @Override
+        public void setYear(int year) {
+            synchronized (stripe(slot)) {
+                slots.putInt(slotOffset(slot) + S_YEAR, year);
+            }
+        }
+
+        public boolean isEBook() {
+            synchronized (stripe(slot)) {
+                return (slots.get(slotOffset(slot) + S_FLAGS) & EBOOK) != 0;
+            }
+        }
+
+        /**
+         * @return File size in MB, or 0 for a printed book
+         */
+        public double getFileSize() {
+            synchronized (stripe(slot)) {
+                return slots.getDouble(slotOffset(slot) + S_FILE_SIZE);
+            }
+        }
+
+        public void setFileSize(double fileSize) {
+            synchronized (stripe(slot)) {
+                slots.putDouble(slotOffset(slot) + S_FILE_SIZE, fileSize);
+            }
+        }
+
+        /**
+         * @return EBook format, or null for a printed book
+         */
+        public String getFormat() {
+            return stringField(slot, S_FORMAT);
+        }
+
+        public void setFormat(String format) {
+            setStringField(slot, S_FORMAT, format);
+        }
+
+        /**
+         * @return A heap Book or EBook with the current values, for code that
+         *         needs a detached copy
+         */
+        public Book toHeapBook() {
+            if (isEBook()) {
+                return new EBook(getTitle(), getAuthor(), getIsbn(), getCopies(), getYear(), getFileSize(),
+                        getFormat());
+            }
+            return new Book(getTitle(), getAuthor(), getIsbn(), getCopies(), getYear());
+        }
+
+        @Override
+        public void display() {
+            toHeapBook().display();
+        }
+
+        @Override
+        public String toString() {
+            return toHeapBook().toString();
+        }
+    }
+
+    /**
+     * A file mapped in fixed-size segments, so it can grow past 2 GB and be
+     * extended without remapping what is already mapped
+     */
+    private static final class Region {
+        private final FileChannel channel;
+        private final int segmentSize;
+        private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+        Region(Path file, int segmentSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.segmentSize = segmentSize;
+            ensure(channel.size());
+        }
+
+        synchronized void ensure(long end) {
+            int needed = (int) ((end + segmentSize - 1) / segmentSize);
+            MappedByteBuffer[] current = segments;
+            if (needed <= current.length) {
+                return;
+            }
+            MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+            try {
+                for (int i = current.length; i < needed; i++) {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow the book store", e);
+            }
+            segments = grown;
+        }
+
+        private MappedByteBuffer segment(long offset) {
+            return segments[(int) (offset / segmentSize)];
+        }
+
+        private int within(long offset) {
+            return (int) (offset % segmentSize);
+        }
+
+        byte get(long offset) {
+            return segment(offset).get(within(offset));
+        }
+
+        void put(long offset, byte value) {
+            segment(offset).put(within(offset), value);
+        }
+
+        int getInt(long offset) {
+            return segment(offset).getInt(within(offset));
+        }
+
+        void putInt(long offset, int value) {
+            segment(offset).putInt(within(offset), value);
+        }
+
+        long getLong(long offset) {
+            return segment(offset).getLong(within(offset));
+        }
+
+        void putLong(long offset, long value) {
+            segment(offset).putLong(within(offset), value);
+        }
+
+        double getDouble(long offset) {
+            return segment(offset).getDouble(within(offset));
+        }
+
+        void putDouble(long offset, double value) {
+            segment(offset).putDouble(within(offset), value);
+        }
+
+        // The caller keeps the range inside one segment
+        void getBytes(long offset, byte[] target) {
+            ByteBuffer view = segment(offset).duplicate();
+            view.position(within(offset));
+            view.get(target);
+        }
+
+        void putBytes(long offset, byte[] source) {
+            ByteBuffer view = segment(offset).duplicate();
+            view.position(within(offset));
+            view.put(source);
+        }
+
+        void zero(long from, long to) {
+            byte[] zeros = new byte[4096];
+            for (long at = from; at < to;) {
+                int length = (int) Math.min(zeros.length, Math.min(to - at, segmentSize - within(at)));
+                ByteBuffer view = segment(at).duplicate();
+                view.position(within(at));
+                view.put(zeros, 0, length);
+                at += length;
+            }
+        }
+
+        void force() {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
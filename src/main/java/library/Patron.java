@@ -1,7 +1,6 @@
 package library;
 
 import java.util.Random;
-import java.util.List;
 
 public class Patron implements Runnable {
     private String name;
@@ -9,8 +8,9 @@ public class Patron implements Runnable {
     private String contact;
     private LibraryManagementSystem library;
 
-    private boolean running = true;
-    private boolean finished = false;
+    // Set by stop() from another thread
+    private volatile boolean running = true;
+    private volatile boolean finished = false;
     private int completedTurns = 0;
     private int maxTurns;
 
@@ -45,6 +45,10 @@ public class Patron implements Runnable {
         return id;
     }
 
+    public int getCompletedTurns() {
+        return completedTurns;
+    }
+
     public String getContact() {
         return contact;
     }
@@ -72,64 +76,109 @@ public class Patron implements Runnable {
     public void run() {
         Random random = new Random();
         try {
-            while (running && !finished) {
-                // Simulate each turn (borrow and return a book)
-                if (borrowedBook == null) {
-                    // Try to borrow a book
-                    Thread.sleep(random.nextInt(1000) + 500); // Random delay
-
-                    List<Book> availableBooks = library.getBooks().stream()
-                            .filter(book -> book.getCopies() > 0)
-                            .collect(java.util.stream.Collectors.toList());
-
-                    if (!availableBooks.isEmpty()) {
-                        int bookIndex = random.nextInt(availableBooks.size());
-                        Book selectedBook = availableBooks.get(bookIndex);
-
-                        System.out.println("\n[" + name + "] intentando prestar el libro: " + selectedBook.getTitle());
-                        boolean success = library.borrowBook(selectedBook.getTitle(), id);
-
-                        if (success) {
-                            borrowedBook = selectedBook;
-                            System.out.println("[" + name + "] préstamo exitoso: " + selectedBook.getTitle());
-                        } else {
-                            System.out.println("[" + name + "] no pudo prestar ningún libro. Reintentando...");
-                            Thread.sleep(random.nextInt(1000) + 1000);
-                        }
-                    } else {
-                        System.out.println("[" + name + "] no hay libros disponibles. Esperando...");
-                        Thread.sleep(random.nextInt(2000) + 1000);
-                    }
+            while (isActive()) {
+                Thread.sleep(nextActionDelay(random));
+                Thread.sleep(act(random));
+            }
+        } catch (InterruptedException e) {
+            library.getEventLog().log(EventLog.Kind.PATRON_STEP, EventLog.Level.WARN,
+                    () -> "[" + name + "] fue interrumpido.");
+        }
+
+        finish();
+    }
+
+    /**
+     * @return True while the patron still has turns to take
+     */
+    public boolean isActive() {
+        return running && !finished;
+    }
+
+    /**
+     * Time to wait before the next borrow or return attempt
+     *
+     * @param random Source of randomness
+     * @return Delay in milliseconds
+     */
+    public long nextActionDelay(Random random) {
+        if (borrowedBook == null) {
+            return random.nextInt(1000) + 500; // Random delay
+        }
+        return random.nextInt(2000) + 1000; // Random reading time
+    }
+
+    /**
+     * Makes one borrow or return attempt. Lets a scheduler drive the patron
+     * without a thread of its own: wait nextActionDelay, call act, wait the
+     * returned pause, and repeat while isActive.
+     *
+     * @param random Source of randomness
+     * @return Pause in milliseconds before the next attempt may start
+     */
+    public long act(Random random) {
+        long pause = 0;
+        EventLog log = library.getEventLog();
+        if (borrowedBook == null) {
+            // Try to borrow a book
+            Book selectedBook = library.pickAvailableBook(random);
+
+            if (selectedBook != null) {
+
+                String title = selectedBook.getTitle();
+                log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.DEBUG,
+                        () -> "\n[" + name + "] intentando prestar el libro: " + title);
+                boolean success = library.borrowBook(title, id);
+
+                if (success) {
+                    borrowedBook = selectedBook;
+                    log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.INFO,
+                            () -> "[" + name + "] préstamo exitoso: " + title);
                 } else {
-                    // Return the borrowed book
-                    Thread.sleep(random.nextInt(2000) + 1000); // Random reading time
-
-                    System.out.println("\n[" + name + "] intentando devolver el libro: " + borrowedBook.getTitle());
-                    boolean success = library.returnBook(borrowedBook.getTitle(), id);
-
-                    if (success) {
-                        System.out.println("[" + name + "] devolvió exitosamente: " + borrowedBook.getTitle());
-                        borrowedBook = null;
-                        completedTurns++;
-
-                        if (completedTurns >= maxTurns) {
-                            System.out.println("[" + name + "] ha completado sus " + maxTurns
-                                    + " vueltas. Saliendo de la biblioteca.");
-                            finished = true;
-                        }
-                    } else {
-                        System.out.println("[" + name + "] no pudo devolver el libro. Reintentando...");
-                        Thread.sleep(random.nextInt(1000) + 500);
-                    }
+                    log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.WARN,
+                            () -> "[" + name + "] no pudo prestar ningún libro. Reintentando...");
+                    pause += random.nextInt(1000) + 1000;
                 }
-
-                // Small pause between operations
-                Thread.sleep(random.nextInt(500) + 200);
+            } else {
+                log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.WARN,
+                        () -> "[" + name + "] no hay libros disponibles. Esperando...");
+                pause += random.nextInt(2000) + 1000;
+            }
+        } else {
+            // Return the borrowed book
+            String title = borrowedBook.getTitle();
+            log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.DEBUG,
+                    () -> "\n[" + name + "] intentando devolver el libro: " + title);
+            boolean success = library.returnBook(title, id);
+
+            if (success) {
+                log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.INFO,
+                        () -> "[" + name + "] devolvió exitosamente: " + title);
+                borrowedBook = null;
+                completedTurns++;
+
+                if (completedTurns >= maxTurns) {
+                    int turns = maxTurns;
+                    log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.INFO,
+                            () -> "[" + name + "] ha completado sus " + turns + " vueltas. Saliendo de la biblioteca.");
+                    finished = true;
+                }
+            } else {
+                log.log(EventLog.Kind.PATRON_STEP, EventLog.Level.WARN,
+                        () -> "[" + name + "] no pudo devolver el libro. Reintentando...");
+                pause += random.nextInt(1000) + 500;
             }
-        } catch (InterruptedException e) {
-            System.out.println("[" + name + "] fue interrumpido.");
         }
 
-        System.out.println("[" + name + "] ha terminado su actividad en la biblioteca.");
+        // Small pause between operations
+        return pause + random.nextInt(500) + 200;
+    }
+
+    /**
+     * Announces that the patron left; called once its last turn is over
+     */
+    public void finish() {
+        library.getEventLog().log(EventLog.Kind.PATRON_FINISHED, EventLog.Level.INFO,
+                () -> "[" + name + "] ha terminado su actividad en la biblioteca.");
     }
 }
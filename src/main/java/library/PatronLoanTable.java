@@ -0,0 +1,70 @@
+package library;
+
+/**
+ * The PatronLoans of every patron with a loan, keyed by patron id.
+ * Ids are kept in primitive int maps split into lock stripes, so a lookup
+ * neither boxes the id nor contends with loans of patrons in other stripes.
+ */
+public class PatronLoanTable {
+
+    private static final int STRIPES = 16;
+
+    private final IntObjectMap<?>[] stripes = new IntObjectMap<?>[STRIPES];
+
+    public PatronLoanTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new IntObjectMap<PatronLoans>();
+        }
+    }
+
+    /**
+     * @param patronId Patron id
+     * @return The patron's loans, or null if the patron never borrowed
+     */
+    public PatronLoans get(int patronId) {
+        IntObjectMap<PatronLoans> stripe = stripe(patronId);
+        synchronized (stripe) {
+            return stripe.get(patronId);
+        }
+    }
+
+    /**
+     * @param patronId Patron id
+     * @return The patron's loans, created empty on first use
+     */
+    public PatronLoans getOrCreate(int patronId) {
+        IntObjectMap<PatronLoans> stripe = stripe(patronId);
+        synchronized (stripe) {
+            PatronLoans loans = stripe.get(patronId);
+            if (loans == null) {
+                loans = new PatronLoans();
+                stripe.put(patronId, loans);
+            }
+            return loans;
+        }
+    }
+
+    /**
+     * Visits every patron's loans, one stripe at a time
+     *
+     * @param visitor Receives the patron id and loans
+     */
+    public void forEach(IntObjectMap.Visitor<PatronLoans> visitor) {
+        for (int i = 0; i < STRIPES; i++) {
+            IntObjectMap<PatronLoans> stripe = stripeAt(i);
+            synchronized (stripe) {
+                stripe.forEach(visitor);
+            }
+        }
+    }
+
+    private IntObjectMap<PatronLoans> stripe(int patronId) {
+        int h = patronId * 0x9E3779B9;
+        return stripeAt((h >>> 28) & (STRIPES - 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private IntObjectMap<PatronLoans> stripeAt(int index) {
+        return (IntObjectMap<PatronLoans>) stripes[index];
+    }
+}
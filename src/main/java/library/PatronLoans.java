@@ -0,0 +1,84 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Books currently on loan to a single patron.
+ * Each patron has its own instance and lock, so loans by different patrons
+ * never contend with each other. The loans are kept in a bare array that
+ * only grows when full, so borrowing and returning allocate nothing.
+ */
+public class PatronLoans {
+
+    private static final Book[] NONE = new Book[0];
+
+    private Book[] books = NONE;
+    private int size;
+
+    public synchronized void add(Book book) {
+        if (size == books.length) {
+            books = Arrays.copyOf(books, Math.max(2, size * 2));
+        }
+        books[size++] = book;
+    }
+
+    /**
+     * Removes the first loaned book with the given title
+     *
+     * @param title Title to match, ignoring case
+     * @return The removed book, or null if the patron does not have it
+     */
+    public synchronized Book removeByTitle(String title) {
+        for (int i = 0; i < size; i++) {
+            Book b = books[i];
+            if (b.getTitle().equalsIgnoreCase(title)) {
+                removeAt(i);
+                return b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes every loan of the given book. Books are compared with equals,
+     * so any view of the same stored book matches.
+     *
+     * @param book The book to drop
+     * @return Number of loans removed
+     */
+    public synchronized int removeAll(Book book) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!books[i].equals(book)) {
+                books[kept++] = books[i];
+            }
+        }
+        int removed = size - kept;
+        Arrays.fill(books, kept, size, null);
+        size = kept;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return A copy of the loaned books
+     */
+    public synchronized List<Book> toList() {
+        return new ArrayList<>(Arrays.asList(books).subList(0, size));
+    }
+
+    // Keeps the remaining loans in borrowing order
+    private void removeAt(int index) {
+        System.arraycopy(books, index + 1, books, index, size - index - 1);
+        books[--size] = null;
+    }
+}
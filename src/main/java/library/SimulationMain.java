@@ -3,6 +3,9 @@ package library;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Separate Main class focused on running the library simulation
@@ -11,7 +14,11 @@ import java.util.Scanner;
 public class SimulationMain {
 
     public static void main(String[] args) {
-        LibraryManagementSystem library = new LibraryManagementSystem();
+        // Hundreds of patrons change the inventory every second, so coalesce the
+        // file rewrites unless -Dlibrary.flush.intervalMs says otherwise
+        LibrarySettings settings = new LibrarySettings();
+        settings.setFlushIntervalMillis(1000);
+        LibraryManagementSystem library = new LibraryManagementSystem(settings.applySystemProperties());
         Scanner scanner = new Scanner(System.in);
 
         // Authenticate the librarian
@@ -21,11 +28,18 @@ public class SimulationMain {
         System.out.println("Ingrese el número de usuarios para la simulación:");
         int numberOfPatrons = Integer.parseInt(scanner.nextLine());
         System.out.println("Número de usuarios: " + numberOfPatrons);
-        System.out.println("Libros disponibles: " + library.getBooks().size());
+        System.out.println("Libros disponibles: " + library.getBookCount());
 
         System.out.println("\nIngrese el número de vueltas por usuario (una vuelta = prestar y devolver un libro):");
         int maxTurns = Integer.parseInt(scanner.nextLine());
 
+        if (settings.getSimulationMode() == LibrarySettings.SimulationMode.DISCRETE) {
+            runDiscrete(library, numberOfPatrons, maxTurns, settings.getSimulationSeed());
+            library.close();
+            scanner.close();
+            return;
+        }
+
         System.out.println("\nLa simulación comenzará en 3 segundos...");
         try {
             Thread.sleep(3000);
@@ -33,20 +47,24 @@ public class SimulationMain {
             e.printStackTrace();
         }
 
-        List<Thread> patronThreads = new ArrayList<>();
-        List<Patron> patrons = new ArrayList<>();
+        // -Dlibrary.simulation.mode=scheduled or virtual runs patrons without a
+        // platform thread each, for tens of thousands of patrons
+        SimulationRunner runner = new SimulationRunner(settings.getSimulationMode(),
+                settings.getSimulationWorkers());
+        System.out.println("Modo de ejecución: " + runner.getMode());
+        List<Patron> patrons = new ArrayList<>(numberOfPatrons);
 
-        // Create and start patron threads
+        // Create and start the patrons
         for (int i = 0; i < numberOfPatrons; i++) {
             Patron patron = new Patron("Patron " + (i + 1), i + 1, "contact" + (i + 1) + "@email.com", library,
                     maxTurns);
             patrons.add(patron);
-            Thread thread = new Thread(patron);
-            patronThreads.add(thread);
-            thread.start();
+            runner.start(patron);
             System.out.println("Usuario " + (i + 1) + " ha entrado a la biblioteca");
         }
 
+        ScheduledExecutorService reporter = startMetricsReport(library, settings.getMetricsReportIntervalMillis());
+
         System.out.println("\n=== Simulación en curso ===");
         System.out.println("La simulación terminará cuando todos los usuarios completen " + maxTurns + " vueltas");
         System.out.println("===========================\n");
@@ -72,20 +90,21 @@ public class SimulationMain {
             for (Patron patron : patrons) {
                 patron.stop();
             }
-            for (Thread thread : patronThreads) {
-                try {
-                    thread.join(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            runner.shutdown();
+            if (reporter != null) {
+                reporter.shutdownNow();
             }
+            library.getEventLog().flush();
 
             System.out.println("\nResumen de la simulación:");
             System.out.println("Usuarios participantes: " + patrons.size());
             System.out.println("Vueltas completadas por usuario: " + maxTurns);
-            System.out.println("Libros disponibles al final: " + library.getBooks().size());
+            System.out.println("Libros disponibles al final: " + library.getBookCount());
+            System.out.println("Eventos: " + library.getEventLog().summary());
+            printMetrics(library);
             System.out.println("===========================");
 
+            library.close();
             scanner.close();
             // Exit the program
             System.exit(0);
@@ -100,4 +119,49 @@ public class SimulationMain {
             System.out.println("Simulation interrupted");
         }
     }
-}
\ No newline at end of file
+
+    // Same patrons on a virtual clock: finishes as fast as the library allows
+    // and replays exactly for a given -Dlibrary.simulation.seed
+    private static void runDiscrete(LibraryManagementSystem library, int numberOfPatrons, int maxTurns, long seed) {
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(seed);
+        for (int i = 0; i < numberOfPatrons; i++) {
+            simulation.add(new Patron("Patron " + (i + 1), i + 1, "contact" + (i + 1) + "@email.com", library,
+                    maxTurns));
+        }
+        long start = System.nanoTime();
+        DiscreteEventSimulation.Result result = simulation.run();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        library.getEventLog().flush();
+
+        System.out.println("\n=== Simulación Completada ===");
+        System.out.println("Semilla: " + seed);
+        System.out.println(result);
+        System.out.println("Tiempo real: " + elapsed + " ms");
+        System.out.println("Libros disponibles al final: " + library.getBookCount());
+        System.out.println("Eventos: " + library.getEventLog().summary());
+        printMetrics(library);
+        System.out.println("===========================");
+    }
+
+    // With -Dlibrary.metrics=true, prints the metrics every interval while
+    // the patrons run; null if there is nothing to report
+    private static ScheduledExecutorService startMetricsReport(LibraryManagementSystem library, long intervalMillis) {
+        if (!library.getMetrics().isEnabled() || intervalMillis <= 0) {
+            return null;
+        }
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "simulation-metrics-report");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> printMetrics(library), intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        return reporter;
+    }
+
+    private static void printMetrics(LibraryManagementSystem library) {
+        if (library.getMetrics().isEnabled()) {
+            System.out.print("\n" + library.getMetrics().toText());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the simulated patrons in one of the SimulationMode ways.
+ * THREADS gives every patron a platform thread of its own. VIRTUAL gives
+ * every patron a virtual thread when the JVM has them. SCHEDULED (and
+ * VIRTUAL on older JVMs) drives all patrons from a few scheduler threads:
+ * while a patron waits it is only a pending timer, so the number of patrons
+ * is bounded by the heap instead of by native threads.
+ */
+public class SimulationRunner {
+
+    private final LibrarySettings.SimulationMode mode;
+    private final List<Thread> threads = new ArrayList<>();
+    private ExecutorService virtualThreads;
+    private ScheduledThreadPoolExecutor scheduler;
+
+    public SimulationRunner(LibrarySettings.SimulationMode mode, int workers) {
+        LibrarySettings.SimulationMode chosen = mode;
+        if (mode == LibrarySettings.SimulationMode.VIRTUAL) {
+            virtualThreads = virtualThreadExecutor();
+            if (virtualThreads == null) {
+                System.out.println("Esta JVM no tiene hilos virtuales; se usará el planificador.");
+                chosen = LibrarySettings.SimulationMode.SCHEDULED;
+            }
+        }
+        if (chosen == LibrarySettings.SimulationMode.SCHEDULED) {
+            AtomicInteger count = new AtomicInteger();
+            scheduler = new ScheduledThreadPoolExecutor(Math.max(1, workers), r -> {
+                Thread t = new Thread(r, "simulation-scheduler-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.mode = chosen;
+    }
+
+    /**
+     * @return The mode in use, after any fallback from VIRTUAL
+     */
+    public LibrarySettings.SimulationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Lets the patron start taking turns
+     *
+     * @param patron A patron created with a library and a number of turns
+     */
+    public void start(Patron patron) {
+        switch (mode) {
+            case THREADS:
+                Thread thread = new Thread(patron);
+                threads.add(thread);
+                thread.start();
+                break;
+            case VIRTUAL:
+                virtualThreads.execute(patron);
+                break;
+            default:
+                scheduler.schedule(() -> step(patron), patron.nextActionDelay(ThreadLocalRandom.current()),
+                        TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Waits briefly for the patrons to wind down and releases the threads.
+     * Call after stopping every patron.
+     */
+    public void shutdown() {
+        for (Thread thread : threads) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+            try {
+                virtualThreads.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // One turn of a scheduled patron; the same sequence of waits as Patron.run
+    private void step(Patron patron) {
+        if (!patron.isActive()) {
+            patron.finish();
+            return;
+        }
+        Random random = ThreadLocalRandom.current();
+        try {
+            long pause = patron.act(random);
+            if (patron.isActive()) {
+                scheduler.schedule(() -> step(patron), pause + patron.nextActionDelay(random),
+                        TimeUnit.MILLISECONDS);
+            } else {
+                patron.finish();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[" + patron.getName() + "] se detuvo por un error: " + e);
+            patron.stop();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), looked up at run time so
+    // the code still compiles for Java 8; null if the JVM does not have it
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
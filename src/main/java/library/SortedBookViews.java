@@ -0,0 +1,128 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Books kept sorted by title and by publication year as they are added and
+ * removed, so sorted listings and year ranges are read straight from the
+ * trees instead of sorting the whole collection on every call.
+ * Books with the same key keep their insertion order, like a stable sort.
+ * Keys are read when a book is added, so callers must remove a book before
+ * changing its title or year and add it again afterwards.
+ * Not thread-safe: callers guard it with their own lock.
+ */
+public class SortedBookViews {
+
+    private final NavigableMap<String, List<Book>> byTitle = new TreeMap<>();
+    private final NavigableMap<Integer, List<Book>> byYear = new TreeMap<>();
+    // Keys captured when the book was added, so an edited book can still be removed
+    private final Map<Book, Object[]> keys = new IdentityHashMap<>();
+
+    public void add(Book book) {
+        if (keys.containsKey(book)) {
+            return;
+        }
+        String title = book.getTitle();
+        Integer year = book.getYear();
+        keys.put(book, new Object[] { title, year });
+        byTitle.computeIfAbsent(title, k -> new ArrayList<>(1)).add(book);
+        byYear.computeIfAbsent(year, k -> new ArrayList<>(1)).add(book);
+    }
+
+    public void remove(Book book) {
+        Object[] indexed = keys.remove(book);
+        if (indexed == null) {
+            return;
+        }
+        unlink(byTitle, (String) indexed[0], book);
+        unlink(byYear, (Integer) indexed[1], book);
+    }
+
+    /**
+     * @return All books ordered by title
+     */
+    public List<Book> byTitle() {
+        return flatten(byTitle.values(), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page of the books ordered by title. The books before the offset
+     * are still walked, so this costs O(offset + limit); use byTitleFrom for
+     * deep pages.
+     *
+     * @param offset Number of books to skip
+     * @param limit  Maximum number of books to return
+     * @return The page, possibly empty
+     */
+    public List<Book> byTitle(int offset, int limit) {
+        return flatten(byTitle.values(), offset, limit);
+    }
+
+    /**
+     * Books whose title sorts at or after the given one; reading a page this
+     * way costs O(log n + limit) whatever its position
+     *
+     * @param fromTitle First title to include
+     * @param limit     Maximum number of books to return
+     * @return The page, possibly empty
+     */
+    public List<Book> byTitleFrom(String fromTitle, int limit) {
+        return flatten(byTitle.tailMap(fromTitle, true).values(), 0, limit);
+    }
+
+    public List<Book> byYearAscending() {
+        return flatten(byYear.values(), 0, Integer.MAX_VALUE);
+    }
+
+    public List<Book> byYearDescending() {
+        return flatten(byYear.descendingMap().values(), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param year Exclusive upper bound
+     * @return Books published before the year, oldest first
+     */
+    public List<Book> publishedBefore(int year) {
+        return flatten(byYear.headMap(year, false).values(), 0, Integer.MAX_VALUE);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private static List<Book> flatten(Collection<List<Book>> buckets, int offset, int limit) {
+        List<Book> result = new ArrayList<>();
+        int skip = Math.max(0, offset);
+        for (List<Book> bucket : buckets) {
+            if (skip >= bucket.size()) {
+                skip -= bucket.size();
+                continue;
+            }
+            for (int i = skip; i < bucket.size(); i++) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(bucket.get(i));
+            }
+            skip = 0;
+        }
+        return result;
+    }
+
+    private static <K> void unlink(Map<K, List<Book>> index, K key, Book book) {
+        List<Book> bucket = index.get(key);
+        if (bucket == null) {
+            return;
+        }
+        bucket.removeIf(b -> b == book);
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package library;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces changes to the books and patrons files.
+ * Mutations only mark their file as dirty; a background thread writes each
+ * dirty file at most once per interval, or as soon as a given number of
+ * mutations has piled up. With an interval of 0 every change is written
+ * immediately by the calling thread, which is the original behaviour.
+ */
+public class WriteBehindPersister implements AutoCloseable {
+
+    private final Runnable booksWriter;
+    private final Runnable patronsWriter;
+    private final long intervalMillis;
+    private final int maxPendingMutations;
+
+    private final AtomicBoolean booksDirty = new AtomicBoolean(false);
+    private final AtomicBoolean patronsDirty = new AtomicBoolean(false);
+    private final AtomicInteger pendingMutations = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicInteger flushCount = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param booksWriter         Writes the current inventory to disk
+     * @param patronsWriter       Writes the current patrons to disk
+     * @param intervalMillis      Maximum delay before a change is written, 0 to
+     *                            write through
+     * @param maxPendingMutations Number of changes that triggers an early flush
+     */
+    public WriteBehindPersister(Runnable booksWriter, Runnable patronsWriter, long intervalMillis,
+            int maxPendingMutations) {
+        this.booksWriter = booksWriter;
+        this.patronsWriter = patronsWriter;
+        this.intervalMillis = intervalMillis;
+        this.maxPendingMutations = Math.max(1, maxPendingMutations);
+        if (intervalMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "library-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Marks the books file as out of date
+     */
+    public void booksChanged() {
+        booksDirty.set(true);
+        changed();
+    }
+
+    /**
+     * Marks the patrons file as out of date
+     */
+    public void patronsChanged() {
+        patronsDirty.set(true);
+        changed();
+    }
+
+    private void changed() {
+        if (scheduler == null) {
+            flush();
+            return;
+        }
+        if (pendingMutations.incrementAndGet() == maxPendingMutations) {
+            scheduler.execute(this::flushQuietly);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flushQuietly, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes every dirty file now. When this returns, all changes marked
+     * before the call are on disk.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            pendingMutations.set(0);
+            flushScheduled.set(false);
+            boolean wrote = false;
+            // Clear the flag before capturing so a concurrent change marks it again
+            if (booksDirty.getAndSet(false)) {
+                booksWriter.run();
+                wrote = true;
+            }
+            if (patronsDirty.getAndSet(false)) {
+                patronsWriter.run();
+                wrote = true;
+            }
+            if (wrote) {
+                flushCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.out.println("Error en el guardado diferido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return True if changes are written in the background
+     */
+    public boolean isWriteBehind() {
+        return scheduler != null;
+    }
+
+    /**
+     * @return Number of flushes that wrote at least one file
+     */
+    public int getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Flushes pending changes and stops the background thread
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+    }
+}
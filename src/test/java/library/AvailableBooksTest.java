@@ -0,0 +1,45 @@
+package library;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Random;
+
+public class AvailableBooksTest {
+
+    private final AvailableBooks available = new AvailableBooks();
+
+    @Test
+    public void testRefreshFollowsCopyCount() {
+        Book book = new Book("Title", "Author", "111", 1, 2020);
+        available.refresh(book);
+        assertTrue(available.contains(book));
+
+        assertTrue(book.tryAcquireCopy());
+        available.refresh(book);
+        assertFalse(available.contains(book));
+        assertNull(available.pickRandom(new Random()));
+
+        book.releaseCopy();
+        available.refresh(book);
+        available.refresh(book);
+        assertEquals(1, available.size());
+    }
+
+    @Test
+    public void testRemoveKeepsRemainingBooksPickable() {
+        Book first = new Book("First", "Author", "111", 1, 2020);
+        Book second = new Book("Second", "Author", "222", 1, 2020);
+        Book third = new Book("Third", "Author", "333", 1, 2020);
+        available.refresh(first);
+        available.refresh(second);
+        available.refresh(third);
+
+        available.remove(first);
+        assertEquals(2, available.size());
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            Book picked = available.pickRandom(random);
+            assertTrue(picked == second || picked == third);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package library;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BinaryCatalogFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = tempDir.resolve("books.bin");
+        List<Book> books = Arrays.asList(
+                new Book("Cien años de soledad", "Gabriel García Márquez", "978-0-06-088328-7", 3, 1967),
+                new EBook("El amor en los tiempos", "Gabriel García Márquez", "978-0307389732", 0, -50, 2.75, "EPUB"),
+                new Book("Ficciones", "Jorge Luis Borges", "9780802130303", 120000, 1944));
+
+        BinaryCatalogFile.write(file, books, 42L);
+        assertTrue(BinaryCatalogFile.isBinary(file));
+
+        List<Book> read = new ArrayList<>();
+        long[] sequence = { -1 };
+        BinaryCatalogFile.read(file, read::add, s -> sequence[0] = s);
+
+        assertEquals(42, sequence[0]);
+        assertEquals(3, read.size());
+        for (int i = 0; i < books.size(); i++) {
+            assertEquals(LibraryManagementSystem.formatBookLine(books.get(i)),
+                    LibraryManagementSystem.formatBookLine(read.get(i)));
+        }
+        assertTrue(read.get(1) instanceof EBook);
+    }
+
+    @Test
+    public void testDamagedFileIsRejected() throws IOException {
+        Path file = tempDir.resolve("books.bin");
+        BinaryCatalogFile.write(file, Arrays.asList(new Book("Title", "Author", "1", 1, 2000)), null);
+        byte[] bytes = Files.readAllBytes(file);
+        // Flip a bit inside the record section
+        bytes[bytes.length - 16] ^= 0x01;
+        Files.write(file, bytes);
+
+        List<Book> read = new ArrayList<>();
+        assertThrows(IOException.class, () -> BinaryCatalogFile.read(file, read::add, s -> { }));
+        assertTrue(read.isEmpty());
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+        assertThrows(IOException.class, () -> BinaryCatalogFile.read(file, read::add, s -> { }));
+    }
+
+    @Test
+    public void testCorruptCountsAreRejected() throws IOException {
+        Path file = tempDir.resolve("books.bin");
+        BinaryCatalogFile.write(file, new ArrayList<>(), null);
+        byte[] empty = Files.readAllBytes(file);
+        List<Book> read = new ArrayList<>();
+
+        // A record count that decodes to -1
+        ByteArrayOutputStream negative = new ByteArrayOutputStream();
+        negative.write(empty, 0, 11);
+        negative.write(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F });
+        negative.write(empty, 12, empty.length - 12);
+        Files.write(file, negative.toByteArray());
+        assertThrows(IOException.class, () -> BinaryCatalogFile.read(file, read::add, s -> { }));
+
+        // A dictionary far larger than the file, before the header checksum
+        ByteArrayOutputStream huge = new ByteArrayOutputStream();
+        huge.write(empty, 0, 6);
+        huge.write(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 });
+        Files.write(file, huge.toByteArray());
+        assertThrows(IOException.class, () -> BinaryCatalogFile.read(file, read::add, s -> { }));
+        assertTrue(read.isEmpty());
+    }
+
+    @Test
+    public void testConvertTextToBinaryAndBack() throws IOException {
+        Path text = tempDir.resolve("books.txt");
+        List<String> lines = Arrays.asList(
+                "#journal|7",
+                "To Kill a Mockingbird|Harper Lee|9780061120084|10|1960|B",
+                "Go Set a Watchman|Harper Lee|9780062409850|2|2015|B",
+                "Digital|Harper Lee|123|1|2020|E|1.5|PDF");
+        Files.write(text, lines);
+
+        Path binary = tempDir.resolve("books.bin");
+        assertEquals(3, BinaryCatalogFile.toBinary(text, binary));
+        assertFalse(BinaryCatalogFile.isBinary(text));
+        assertTrue(Files.size(binary) < Files.size(text));
+
+        Path back = tempDir.resolve("back.txt");
+        assertEquals(3, BinaryCatalogFile.toText(binary, back));
+        assertEquals(lines, Files.readAllLines(back));
+    }
+}
@@ -0,0 +1,124 @@
+package library;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BookJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAppendAndReplay() throws Exception {
+        Path file = tempDir.resolve("books.txt.journal");
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.GROUP)) {
+            long first = journal.append("111", -1);
+            long second = journal.append("222", 1);
+            journal.sync(second);
+            assertEquals(1, first);
+            assertEquals(2, second);
+            assertEquals(2, journal.pendingRecords());
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            assertEquals(2, journal.lastSequence());
+            journal.replay(0, (isbn, delta) -> replayed.add(isbn + ":" + delta));
+        }
+        assertEquals(Arrays.asList("111:-1", "222:1"), replayed);
+    }
+
+    @Test
+    public void testReplaySkipsRecordsInSnapshot() throws Exception {
+        Path file = tempDir.resolve("books.txt.journal");
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.ALWAYS)) {
+            journal.append("111", -1);
+            journal.append("111", -1);
+            journal.append("111", 1);
+            List<Integer> deltas = new ArrayList<>();
+            assertEquals(1, journal.replay(2, (isbn, delta) -> deltas.add(delta)));
+            assertEquals(Arrays.asList(1), deltas);
+        }
+    }
+
+    @Test
+    public void testTruncateKeepsNewerRecords() throws Exception {
+        Path file = tempDir.resolve("books.txt.journal");
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            journal.append("111", -1);
+            journal.append("222", -1);
+            journal.append("333", -1);
+            journal.truncateThrough(2);
+            assertEquals(1, journal.pendingRecords());
+            assertEquals(Arrays.asList("3|333|-1"), Files.readAllLines(file, StandardCharsets.UTF_8));
+
+            // Numbering continues after a truncation
+            assertEquals(4, journal.append("444", 1));
+            journal.truncateThrough(4);
+            assertEquals(0, journal.pendingRecords());
+            assertEquals(0, Files.size(file));
+        }
+    }
+
+    @Test
+    public void testTornRecordEndsReplay() throws Exception {
+        Path file = tempDir.resolve("books.txt.journal");
+        Files.write(file, "1|111|-1\n2|222".getBytes(StandardCharsets.UTF_8));
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            List<String> isbns = new ArrayList<>();
+            journal.replay(0, (isbn, delta) -> isbns.add(isbn));
+            assertEquals(Arrays.asList("111"), isbns);
+            assertEquals(1, journal.lastSequence());
+
+            journal.append("333", 1);
+        }
+        assertEquals(Arrays.asList("1|111|-1", "2|333|1"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLastRecordWithoutNewlineIsTorn() throws Exception {
+        Path file = tempDir.resolve("books.txt.journal");
+        // The write stopped right after the delta: it may have been 10, not 1
+        Files.write(file, "1|111|-1\n2|222|1".getBytes(StandardCharsets.UTF_8));
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            assertEquals(1, journal.lastSequence());
+            assertEquals(1, journal.pendingRecords());
+            assertEquals(2, journal.append("333", 1));
+            assertEquals(3, journal.append("444", -1));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            assertEquals(3, journal.lastSequence());
+            journal.replay(0, (isbn, delta) -> replayed.add(isbn + ":" + delta));
+        }
+        assertEquals(Arrays.asList("111:-1", "333:1", "444:-1"), replayed);
+        assertEquals(Arrays.asList("1|111|-1", "2|333|1", "3|444|-1"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDamagedRecordInTheMiddleKeepsLaterRecords() throws Exception {
+        Path file = tempDir.resolve("books.txt.journal");
+        Files.write(file, "1|111|-1\n2|2#2\n3|333|1\n4|44".getBytes(StandardCharsets.UTF_8));
+        try (BookJournal journal = new BookJournal(file, BookJournal.SyncPolicy.NONE)) {
+            assertEquals(3, journal.lastSequence());
+            assertEquals(1, journal.damagedRecords());
+            List<String> replayed = new ArrayList<>();
+            journal.replay(0, (isbn, delta) -> replayed.add(isbn + ":" + delta));
+            assertEquals(Arrays.asList("111:-1", "333:1"), replayed);
+
+            // Only the torn last line was cut off
+            assertEquals(4, journal.append("444", -1));
+        }
+        assertEquals(Arrays.asList("1|111|-1", "2|2#2", "3|333|1", "4|444|-1"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+}
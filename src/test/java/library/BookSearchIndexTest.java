@@ -0,0 +1,60 @@
+package library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+    private Book javaBasics;
+    private Book effectiveJava;
+    private Book javascript;
+    private Book patterns;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex();
+        javaBasics = new Book("Java", "John Doe", "1", 1, 2020);
+        effectiveJava = new Book("Effective Java", "Joshua Bloch", "2", 1, 2018);
+        javascript = new Book("Learning JavaScript", "Ethan Brown", "3", 1, 2016);
+        patterns = new Book("Design Patterns", "Erich Gamma", "4", 1, 1994);
+        index.add(javaBasics);
+        index.add(effectiveJava);
+        index.add(javascript);
+        index.add(patterns);
+    }
+
+    @Test
+    public void testSubstringSearchRanksBestMatchFirst() {
+        List<Book> results = index.search("JAVA", BookSearchIndex.Field.TITLE);
+        assertEquals(3, results.size());
+        assertSame(javaBasics, results.get(0));
+        assertSame(effectiveJava, results.get(1));
+        assertSame(javascript, results.get(2));
+    }
+
+    @Test
+    public void testFieldRestrictsMatches() {
+        assertEquals(1, index.search("bloch", BookSearchIndex.Field.AUTHOR).size());
+        assertTrue(index.search("bloch", BookSearchIndex.Field.TITLE).isEmpty());
+        assertEquals(1, index.search("gamma", BookSearchIndex.Field.ANY).size());
+        assertTrue(index.search("python", BookSearchIndex.Field.ANY).isEmpty());
+    }
+
+    @Test
+    public void testShortQueriesStillMatchSubstrings() {
+        assertEquals(2, index.search("jo", BookSearchIndex.Field.AUTHOR).size());
+    }
+
+    @Test
+    public void testRemoveUsesKeysCapturedAtIndexTime() {
+        patterns.setTitle("Refactoring");
+        index.remove(patterns);
+        assertTrue(index.search("patterns", BookSearchIndex.Field.TITLE).isEmpty());
+        index.add(patterns);
+        assertEquals(1, index.search("refactor", BookSearchIndex.Field.TITLE).size());
+        assertEquals(4, index.size());
+    }
+}
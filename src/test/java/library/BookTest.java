@@ -3,6 +3,7 @@ package library;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BookTest {
     
@@ -63,6 +64,36 @@ public class BookTest {
         assertEquals(2025, book.getYear());
     }
     
+    @Test
+    public void testTryAcquireCopyStopsAtZero() {
+        Book single = new Book("Single", "Author", "111", 1, 2020);
+        assertTrue(single.tryAcquireCopy());
+        assertFalse(single.tryAcquireCopy());
+        assertEquals(0, single.getCopies());
+        assertEquals(1, single.releaseCopy());
+    }
+    
+    @Test
+    public void testConcurrentAcquireNeverOversells() throws InterruptedException {
+        AtomicInteger acquired = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (book.tryAcquireCopy()) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(5, acquired.get());
+        assertEquals(0, book.getCopies());
+    }
+    
     @Test
     public void testToString() {
         String expected = "Title: Test Title, Author: Test Author, ISBN: 12345, Year: 2023, Available copies: 5";
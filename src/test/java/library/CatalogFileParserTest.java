@@ -0,0 +1,159 @@
+package library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class CatalogFileParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testBooksMatchLineByLineParsing() throws IOException {
+        StringBuilder content = new StringBuilder("#journal| 42\n");
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    content.append("EBook ").append(i).append("|Autor é|").append(i).append("|2|2001|E|1.5|PDF");
+                    break;
+                case 1:
+                    content.append("Old ").append(i).append("|Author|").append(i).append("|+3");
+                    break;
+                case 2:
+                    content.append("Bad year ").append(i).append("|Author|").append(i).append("|1|19x9|B");
+                    break;
+                case 3:
+                    content.append("Trailing ").append(i).append("||").append(i).append("|4|1999|E|2.0|||");
+                    break;
+                case 4:
+                    content.append("ignored|line");
+                    break;
+                default:
+                    content.append("Book ").append(i).append("|Author ").append(i).append("|").append(i)
+                            .append("|").append(i % 5).append("|").append(1900 + i).append("|B");
+            }
+            content.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        content.append("Last|No|Newline|1|2000");
+        Path file = write("books.txt", content.toString());
+
+        List<String> expected = new ArrayList<>();
+        long expectedSequence = readBooksLineByLine(file, expected);
+
+        // Tiny chunks so lines are spread over many parallel tasks
+        List<String> actual = new ArrayList<>();
+        long[] sequence = { -1 };
+        new CatalogFileParser(pool, 64).parseBooks(file, b -> actual.add(describe(b)), s -> sequence[0] = s);
+
+        assertEquals(expected, actual);
+        assertEquals(expectedSequence, sequence[0]);
+    }
+
+    @Test
+    public void testMalformedCopiesStopsAfterEarlierLines() throws IOException {
+        Path file = write("books.txt", "A|x|1|1|2000\nB|x|2|2|2001\nC|x|3|many|2002\nD|x|4|4|2003\n");
+        List<Book> books = new ArrayList<>();
+
+        assertThrows(NumberFormatException.class,
+                () -> new CatalogFileParser(pool, 8).parseBooks(file, books::add, s -> { }));
+        assertEquals(2, books.size());
+        assertEquals("B", books.get(1).getTitle());
+    }
+
+    @Test
+    public void testPatrons() throws IOException {
+        Path file = write("patrons.txt", "1|John Doe|john@example.com\r\n2|Jane|jane@example.com|\n"
+                + "3|Too|many|fields\n\n4|Ana|ana@example.com");
+        List<Patron> patrons = new ArrayList<>();
+
+        new CatalogFileParser(pool, 16).parsePatrons(file, patrons::add);
+
+        assertEquals(3, patrons.size());
+        assertEquals("John Doe", patrons.get(0).getName());
+        assertEquals("jane@example.com", patrons.get(1).getContact());
+        assertEquals(4, patrons.get(2).getId());
+    }
+
+    @Test
+    public void testMissingFile() {
+        assertThrows(IOException.class,
+                () -> new CatalogFileParser().parsePatrons(tempDir.resolve("none.txt"), p -> { }));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(Charset.defaultCharset()));
+        return file;
+    }
+
+    // The loader this parser replaced, kept as the reference behaviour
+    private static long readBooksLineByLine(Path file, List<String> books) throws IOException {
+        long sequence = -1;
+        try (BufferedReader br = Files.newBufferedReader(file, Charset.defaultCharset())) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith("#journal|")) {
+                    sequence = Long.parseLong(line.substring("#journal|".length()).trim());
+                    continue;
+                }
+                String[] parts = line.split("\\|");
+                if (parts.length >= 4) {
+                    int copies = Integer.parseInt(parts[3]);
+                    int year = 0;
+                    if (parts.length >= 5) {
+                        try {
+                            year = Integer.parseInt(parts[4]);
+                        } catch (NumberFormatException e) {
+                            // year stays 0
+                        }
+                    }
+                    Book book;
+                    if (parts.length >= 8 && "E".equals(parts[5])) {
+                        book = new EBook(parts[0], parts[1], parts[2], copies, year,
+                                Double.parseDouble(parts[6]), parts[7]);
+                    } else {
+                        book = new Book(parts[0], parts[1], parts[2], copies, year);
+                    }
+                    books.add(describe(book));
+                }
+            }
+        }
+        return sequence;
+    }
+
+    private static String describe(Book book) {
+        String text = book.getClass().getSimpleName() + "|" + book.getTitle() + "|" + book.getAuthor() + "|"
+                + book.getIsbn() + "|" + book.getCopies() + "|" + book.getYear();
+        if (book instanceof EBook) {
+            EBook ebook = (EBook) book;
+            text += "|" + ebook.getFileSize() + "|" + ebook.getFormat();
+        }
+        return text;
+    }
+}
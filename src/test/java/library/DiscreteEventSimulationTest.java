@@ -0,0 +1,119 @@
+package library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class DiscreteEventSimulationTest {
+
+    private static final long ONE_DAY = 24L * 60 * 60 * 1000;
+
+    private final PrintStream originalOut = System.out;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testSameSeedGivesSameRun() throws IOException {
+        String first = runAndDescribe("first", 7);
+        String second = runAndDescribe("second", 7);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testSimulatedDayRunsOnVirtualClock() throws IOException {
+        LibraryManagementSystem library = newLibrary("day");
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(1);
+        for (int i = 1; i <= 20; i++) {
+            simulation.add(new Patron("Patron " + i, i, "p" + i + "@example.com", library, Integer.MAX_VALUE));
+        }
+
+        long start = System.nanoTime();
+        DiscreteEventSimulation.Result result = simulation.run(ONE_DAY);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        library.close();
+
+        assertEquals(ONE_DAY, result.getSimulatedMillis());
+        assertEquals(ONE_DAY, simulation.now());
+        assertEquals(0, result.getFinishedPatrons());
+        assertTrue(result.getCompletedTurns() > 1000);
+        assertTrue(elapsedMillis < 20000, "one simulated day took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testRunUntilEveryPatronFinishes() throws IOException {
+        LibraryManagementSystem library = newLibrary("finish");
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(3);
+        for (int i = 1; i <= 10; i++) {
+            simulation.add(new Patron("Patron " + i, i, "p" + i + "@example.com", library, 2));
+        }
+
+        DiscreteEventSimulation.Result result = simulation.run();
+        library.close();
+
+        assertEquals(10, result.getFinishedPatrons());
+        assertEquals(20, result.getCompletedTurns());
+        assertTrue(library.getBorrowedBooks().values().stream().allMatch(loans -> loans.isEmpty()));
+    }
+
+    private String runAndDescribe(String name, long seed) throws IOException {
+        LibraryManagementSystem library = newLibrary(name);
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(seed);
+        for (int i = 1; i <= 15; i++) {
+            simulation.add(new Patron("Patron " + i, i, "p" + i + "@example.com", library, 50));
+        }
+        // Stop halfway so the state still has books out on loan
+        DiscreteEventSimulation.Result result = simulation.run(ONE_DAY / 24);
+
+        StringBuilder state = new StringBuilder(result.toString());
+        for (Book book : library.getBooks()) {
+            state.append('\n').append(book.getIsbn()).append('=').append(book.getCopies());
+        }
+        for (int id = 1; id <= 15; id++) {
+            state.append('\n').append(id).append(':');
+            for (Book book : library.getBorrowedBooks().getOrDefault(id, Arrays.asList())) {
+                state.append(book.getIsbn()).append(',');
+            }
+        }
+        library.close();
+        return state.toString();
+    }
+
+    private LibraryManagementSystem newLibrary(String name) throws IOException {
+        Path booksFile = tempDir.resolve(name + "-books.txt");
+        Files.write(booksFile, Arrays.asList(
+                "Rayuela|Julio Cortázar|A1|2|1963|B",
+                "Ficciones|Jorge Luis Borges|A2|1|1944|B",
+                "Pedro Páramo|Juan Rulfo|A3|3|1955|B",
+                "Digital|Ana Gómez|A4|2|2020|E|1.5|PDF"));
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve(name + "-patrons.txt").toString());
+        settings.setFlushIntervalMillis(60000);
+        settings.setFlushMaxMutations(Integer.MAX_VALUE);
+        return new LibraryManagementSystem(settings);
+    }
+}
@@ -0,0 +1,140 @@
+package library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+public class EventLogTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    public void setUp() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testAsyncModePrintsEveryMessageFromManyThreads() throws InterruptedException {
+        EventLog log = new EventLog(EventLog.Mode.ASYNC, EventLog.Level.DEBUG, 1, 1 << 16);
+        Thread[] threads = new Thread[4];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 5000; i++) {
+                    int n = i;
+                    log.log(EventLog.Kind.BORROWED, EventLog.Level.INFO, () -> "t" + thread + "-" + n);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+
+        String[] lines = outContent.toString().split(System.lineSeparator());
+        assertEquals(20000, lines.length);
+        assertEquals(20000, log.count(EventLog.Kind.BORROWED));
+        assertEquals(0, log.getDropped());
+        // Each producer's messages stay in order
+        assertTrue(outContent.toString().indexOf("t2-4998") < outContent.toString().indexOf("t2-4999"));
+    }
+
+    @Test
+    public void testFullBufferDropsInsteadOfBlocking() {
+        EventLog log = new EventLog(EventLog.Mode.ASYNC, EventLog.Level.DEBUG, 1, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        // The first message keeps the writer busy while the buffer fills up
+        log.log(EventLog.Kind.RETURNED, EventLog.Level.INFO, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        });
+        for (int i = 0; i < 100; i++) {
+            log.log(EventLog.Kind.RETURNED, EventLog.Level.INFO, () -> "fast");
+        }
+        release.countDown();
+        log.close();
+
+        assertEquals(101, log.count(EventLog.Kind.RETURNED));
+        assertTrue(log.getDropped() >= 100 - 4);
+        assertTrue(outContent.toString().startsWith("slow"));
+    }
+
+    @Test
+    public void testLevelAndSummaryModeOnlyCount() {
+        EventLog filtered = new EventLog(EventLog.Mode.CONSOLE, EventLog.Level.WARN, 1, 0);
+        filtered.log(EventLog.Kind.PATRON_STEP, EventLog.Level.INFO, () -> "hidden");
+        filtered.log(EventLog.Kind.PATRON_STEP, EventLog.Level.WARN, () -> "shown");
+
+        EventLog summary = new EventLog(EventLog.Mode.SUMMARY, EventLog.Level.DEBUG, 1, 0);
+        summary.log(EventLog.Kind.BORROW_REJECTED, EventLog.Level.ERROR, () -> {
+            throw new AssertionError("summary mode must not build messages");
+        });
+
+        assertEquals("shown" + System.lineSeparator(), outContent.toString());
+        assertEquals(2, filtered.count(EventLog.Kind.PATRON_STEP));
+        assertEquals(1, summary.count(EventLog.Kind.BORROW_REJECTED));
+        assertTrue(summary.summary().contains("préstamos rechazados: 1"));
+    }
+
+    @Test
+    public void testSamplingPrintsAFraction() {
+        EventLog log = new EventLog(EventLog.Mode.CONSOLE, EventLog.Level.DEBUG, 10, 0);
+        for (int i = 0; i < 10000; i++) {
+            log.log(EventLog.Kind.BORROWED, EventLog.Level.INFO, () -> "x");
+        }
+        int printed = outContent.toString().split(System.lineSeparator()).length;
+        assertEquals(10000, log.count(EventLog.Kind.BORROWED));
+        assertTrue(printed > 500 && printed < 1500, "printed " + printed);
+    }
+
+    @Test
+    public void testLibraryCountsLendingInSummaryMode(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Rayuela|Julio Cortázar|A1|1|1963|B\n".getBytes("UTF-8"));
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setLogMode(EventLog.Mode.SUMMARY);
+        LibraryManagementSystem library = new LibraryManagementSystem(settings);
+        outContent.reset();
+
+        assertTrue(library.borrowBook("Rayuela", 1));
+        assertFalse(library.borrowBook("Rayuela", 2));
+        assertTrue(library.returnBook("Rayuela", 1));
+        assertFalse(library.returnBook("Rayuela", 2));
+        library.close();
+
+        EventLog log = library.getEventLog();
+        assertEquals(1, log.count(EventLog.Kind.BORROWED));
+        assertEquals(1, log.count(EventLog.Kind.BORROW_REJECTED));
+        assertEquals(1, log.count(EventLog.Kind.RETURNED));
+        assertEquals(1, log.count(EventLog.Kind.RETURN_REJECTED));
+        assertFalse(outContent.toString().contains("[Simulación]"));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -12,7 +13,9 @@ import java.io.FileWriter;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
@@ -100,6 +103,339 @@ public class LibraryManagementSystemTest {
         assertTrue(foundBooks.stream().anyMatch(b -> b.getTitle().equals("Test Author Book")));
     }
 
+    @Test
+    public void testBlankQueryMatchesEveryBook() {
+        library.addBook(new Book("Blank Query Book", "Blank Author", "BQ12345", 1, 2023));
+        List<Book> books = library.getBooks();
+        assertEquals(books, library.findBooksByAuthor(""));
+        assertEquals(books, library.findBooksByTitleContaining("  "));
+    }
+
+    @Test
+    public void testSortBooksByTitleFromReadsKeysetPages(@TempDir Path tempDir) throws Exception {
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(tempDir.resolve("books.txt").toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        try (LibraryManagementSystem paged = new LibraryManagementSystem(settings)) {
+            for (String title : new String[] { "Delta", "Alpha", "Charlie", "Bravo", "Echo" }) {
+                paged.addBook(new Book(title, "Paged Author", "PG-" + title, 1, 2020));
+            }
+            List<Book> first = paged.sortBooksByTitleFrom("", 2);
+            assertEquals("Alpha", first.get(0).getTitle());
+            assertEquals("Bravo", first.get(1).getTitle());
+
+            List<Book> next = paged.sortBooksByTitleFrom("Bravo\0", 2);
+            assertEquals(2, next.size());
+            assertEquals("Charlie", next.get(0).getTitle());
+            assertEquals("Delta", next.get(1).getTitle());
+            assertEquals(next, paged.sortBooksByTitle(2, 2));
+        }
+    }
+
+    @Test
+    public void testJournalModeReplaysLoansAfterRestart(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Journal Book|Journal Author|JB12345|3|2021|B\n".getBytes());
+
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setPersistenceMode(LibrarySettings.PersistenceMode.JOURNAL);
+
+        LibraryManagementSystem journaled = new LibraryManagementSystem(settings);
+        assertTrue(journaled.borrowBook("Journal Book", 1));
+        assertTrue(journaled.borrowBook("Journal Book", 2));
+        assertTrue(journaled.returnBook("Journal Book", 1));
+
+        // The snapshot is untouched; only the journal grew
+        assertTrue(Files.readAllLines(booksFile).get(0).contains("|3|"));
+        assertEquals(3, Files.readAllLines(Paths.get(settings.getJournalFile())).size());
+
+        LibraryManagementSystem restarted = new LibraryManagementSystem(settings);
+        assertEquals(2, restarted.getBooks().get(0).getCopies());
+
+        // A full save checkpoints the journal into the snapshot
+        restarted.addBook(new Book("Second Book", "Journal Author", "JB67890", 1, 2022));
+        assertEquals(0, Files.size(Paths.get(settings.getJournalFile())));
+        LibraryManagementSystem checkpointed = new LibraryManagementSystem(settings);
+        assertEquals(2, checkpointed.getBooks().size());
+        assertEquals(2, checkpointed.getBooks().get(0).getCopies());
+    }
+
+    @Test
+    public void testMappedStorageKeepsLoansAcrossRestarts(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, ("Mapped Book|Mapped Author|MB12345|2|2021|B\n"
+                + "Mapped Book|Mapped Author|MB67890|1|2019|B\n").getBytes());
+
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setStorage(LibrarySettings.Storage.MAPPED);
+
+        try (LibraryManagementSystem mapped = new LibraryManagementSystem(settings)) {
+            assertEquals(2, mapped.getBookCount());
+            assertTrue(mapped.borrowBook("mapped book", 1));
+            assertEquals(1, mapped.findBookByIsbn("MB-12345").getCopies());
+            assertEquals(2, mapped.findBooksByTitleContaining("mapped").size());
+            assertEquals(2019, mapped.sortBooksByYearAscending().get(0).getYear());
+        }
+        // The books file is only imported once; the store holds the loans
+        Files.write(booksFile, new byte[0]);
+
+        try (LibraryManagementSystem restarted = new LibraryManagementSystem(settings)) {
+            assertEquals(2, restarted.getBookCount());
+            assertEquals(1, restarted.findBookByIsbn("MB12345").getCopies());
+            assertTrue(restarted.borrowBook("Mapped Book", 1));
+            assertTrue(restarted.borrowBook("Mapped Book", 1));
+            assertEquals(2, restarted.getBorrowedBooks().get(1).size());
+
+            // A fresh view of the same slot drops the loans made through others
+            restarted.removeBook(restarted.findBookByIsbn("MB12345"));
+            assertNull(restarted.findBookByIsbn("MB12345"));
+            assertEquals(1, restarted.getBorrowedBooks().get(1).size());
+            assertEquals(1, restarted.getBookCount());
+        }
+    }
+
+    @Test
+    public void testMappedStorageExportsBooksFileAndRefusesStaleFallback(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Mapped Book|Mapped Author|MB12345|2|2021|B\n".getBytes());
+
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setStorage(LibrarySettings.Storage.MAPPED);
+
+        try (LibraryManagementSystem mapped = new LibraryManagementSystem(settings)) {
+            assertTrue(mapped.borrowBook("Mapped Book", 1));
+            mapped.addBook(new Book("Added Book", "Mapped Author", "MB67890", 1, 2022));
+        }
+        // Closing leaves a current copy in the books file
+        assertEquals("Mapped Book|Mapped Author|MB12345|1|2021|B", Files.readAllLines(booksFile).get(0));
+        assertEquals(2, Files.readAllLines(booksFile).size());
+
+        // A store that exists but cannot be opened is not replaced by books.txt
+        Path slots = Paths.get(settings.getStoreFile() + ".slots");
+        byte[] damaged = Files.readAllBytes(slots);
+        damaged[0] ^= 0x7F;
+        Files.write(slots, damaged);
+        assertThrows(IllegalStateException.class, () -> new LibraryManagementSystem(settings));
+    }
+
+    @Test
+    public void testSnapshotModeBetweenJournalRunsKeepsCounts(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Switch Book|Switch Author|SB12345|5|2021|B\n".getBytes());
+
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setPersistenceMode(LibrarySettings.PersistenceMode.JOURNAL);
+        try (LibraryManagementSystem journaled = new LibraryManagementSystem(settings)) {
+            assertTrue(journaled.borrowBook("Switch Book", 1));
+            assertTrue(journaled.borrowBook("Switch Book", 2));
+        }
+
+        // The snapshot run picks up the journal and saves with its marker
+        settings.setPersistenceMode(LibrarySettings.PersistenceMode.SNAPSHOT);
+        try (LibraryManagementSystem snapshot = new LibraryManagementSystem(settings)) {
+            assertEquals(3, snapshot.getBooks().get(0).getCopies());
+            assertTrue(snapshot.borrowBook("Switch Book", 3));
+        }
+        assertEquals(LibraryManagementSystem.JOURNAL_MARKER + "2", Files.readAllLines(booksFile).get(0));
+
+        settings.setPersistenceMode(LibrarySettings.PersistenceMode.JOURNAL);
+        try (LibraryManagementSystem rejournaled = new LibraryManagementSystem(settings)) {
+            assertEquals(2, rejournaled.getBooks().get(0).getCopies());
+        }
+    }
+
+    @Test
+    public void testBooksFileIsReadAndWrittenAsUtf8(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Rayuela|Julio Cortázar|RY12345|1|1963|B\n".getBytes(StandardCharsets.UTF_8));
+
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        try (LibraryManagementSystem utf8 = new LibraryManagementSystem(settings)) {
+            assertEquals("Julio Cortázar", utf8.getBooks().get(0).getAuthor());
+            utf8.addBook(new Book("Ficciones", "Jorge Luis Borges", "FC12345", 1, 1944));
+        }
+        assertEquals("Rayuela|Julio Cortázar|RY12345|1|1963|B",
+                Files.readAllLines(booksFile, StandardCharsets.UTF_8).get(0));
+    }
+
+    @Test
+    public void testWriteBehindDefersSaveUntilFlush(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Deferred Book|Deferred Author|DB12345|2|2020|B\n".getBytes());
+
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setFlushIntervalMillis(60000);
+        settings.setFlushMaxMutations(1000);
+
+        LibraryManagementSystem deferred = new LibraryManagementSystem(settings);
+        assertTrue(deferred.borrowBook("Deferred Book", 1));
+        deferred.addBook(new Book("Another Book", "Deferred Author", "DB67890", 1, 2021));
+        assertEquals(1, Files.readAllLines(booksFile).size());
+
+        deferred.flush();
+        List<String> lines = Files.readAllLines(booksFile);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("|1|"));
+        deferred.close();
+    }
+
+    @Test
+    public void testIsbnIndexLookupAndRemove() {
+        Book indexed = new Book("Indexed Book", "Index Author", "978-1-23456-789-7", 1, 2020);
+        library.addBook(indexed);
+
+        assertSame(indexed, library.findBookByIsbn(" 9781234567897"));
+        assertTrue(library.borrowBook("indexed book", 7));
+
+        library.removeBook(indexed);
+        assertNull(library.findBookByIsbn("9781234567897"));
+        assertFalse(library.borrowBook("Indexed Book", 8));
+        assertFalse(library.returnBook("Indexed Book", 7));
+    }
+
+    @Test
+    public void testEditBookMovesIndexEntries(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, ("Old Title|Old Author|ED12345|1|2000|B\n"
+                + "Other Title|Old Author|ED67890|1|2001|B\n").getBytes());
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+
+        // ISBN, new title, new author, keep ISBN, keep copies, keep year
+        System.setIn(new ByteArrayInputStream("ED12345\nNew Title\nNew Author\n\n-1\n-1\n".getBytes()));
+        LibraryManagementSystem editing = new LibraryManagementSystem(settings);
+        editing.editBook();
+
+        assertFalse(editing.borrowBook("Old Title", 1));
+        assertTrue(editing.borrowBook("New Title", 1));
+        assertEquals(1, editing.findBooksByAuthor("New Author").size());
+        assertEquals("New Title", editing.findBookByIsbn("ED12345").getTitle());
+    }
+
+    @Test
+    public void testBinaryBooksFormatSavesAndReloads(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Binary Book|Binary Author|BB12345|2|2019|B\n".getBytes());
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setBooksFormat(LibrarySettings.BooksFormat.BINARY);
+
+        // The text file is read, the next save switches it to binary
+        LibraryManagementSystem binary = new LibraryManagementSystem(settings);
+        binary.addBook(new EBook("Binary EBook", "Binary Author", "BB67890", 1, 2020, 3.5, "PDF"));
+        assertTrue(binary.borrowBook("Binary Book", 1));
+        assertTrue(BinaryCatalogFile.isBinary(booksFile));
+
+        LibraryManagementSystem reloaded = new LibraryManagementSystem(settings);
+        assertEquals(2, reloaded.getBooks().size());
+        assertEquals(1, reloaded.findBookByIsbn("BB12345").getCopies());
+        assertEquals("PDF", ((EBook) reloaded.findBookByIsbn("BB67890")).getFormat());
+    }
+
+    @Test
+    public void testFailedBinarySaveLeavesBooksFileIntact(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Binary Book|Binary Author|BB12345|2|2019|B\n".getBytes());
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setBooksFormat(LibrarySettings.BooksFormat.BINARY);
+
+        try (LibraryManagementSystem binary = new LibraryManagementSystem(settings)) {
+            binary.addBook(new Book("Second Book", "Binary Author", "BB67890", 1, 2020));
+            assertTrue(BinaryCatalogFile.isBinary(booksFile));
+            assertFalse(Files.exists(tempDir.resolve("books.txt.tmp")));
+
+            // The next save cannot create its temporary file
+            Files.createDirectory(tempDir.resolve("books.txt.tmp"));
+            binary.addBook(new Book("Third Book", "Binary Author", "BB24680", 1, 2021));
+        }
+        LibraryManagementSystem reloaded = new LibraryManagementSystem(settings);
+        assertEquals(2, reloaded.getBooks().size());
+    }
+
+    @Test
+    public void testCatalogSnapshotAndAvailableView() {
+        List<Book> before = library.getBooks();
+        assertSame(before, library.getBooks());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(null));
+
+        Book single = new Book("Single Copy", "Snapshot Author", "SC12345", 1, 2020);
+        library.addBook(single);
+        assertEquals(before.size() + 1, library.getBooks().size());
+        int available = library.getAvailableBookCount();
+
+        assertTrue(library.borrowBook("Single Copy", 9));
+        assertEquals(available - 1, library.getAvailableBookCount());
+        assertTrue(library.returnBook("Single Copy", 9));
+        assertEquals(available, library.getAvailableBookCount());
+        library.removeBook(single);
+    }
+
+    @Test
+    public void testConcurrentLoansKeepCopyCountsConsistent(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, ("Hot Book|Author A|HB00001|3|2000|B\n"
+                + "Warm Book|Author B|HB00002|5|2001|B\n"
+                + "Cold Book|Author C|HB00003|1|2002|B\n").getBytes());
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setFlushIntervalMillis(60000);
+        settings.setFlushMaxMutations(Integer.MAX_VALUE);
+        LibraryManagementSystem shared = new LibraryManagementSystem(settings);
+
+        String[] titles = { "Hot Book", "Warm Book", "Cold Book" };
+        int threads = 8;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int patronId = t + 1;
+            workers[t] = new Thread(() -> {
+                java.util.Random random = new java.util.Random(patronId);
+                for (int i = 0; i < 500; i++) {
+                    String title = titles[random.nextInt(titles.length)];
+                    if (!shared.borrowBook(title, patronId)) {
+                        shared.returnBook(title, patronId);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int[] expected = { 3, 5, 1 };
+        for (int i = 0; i < titles.length; i++) {
+            Book book = shared.findBookByIsbn("HB0000" + (i + 1));
+            int held = 0;
+            for (List<Book> loans : shared.getBorrowedBooks().values()) {
+                for (Book b : loans) {
+                    if (b == book) {
+                        held++;
+                    }
+                }
+            }
+            assertTrue(book.getCopies() >= 0, titles[i] + " went negative");
+            assertEquals(expected[i], book.getCopies() + held, titles[i]);
+        }
+        shared.close();
+    }
+
     // Additional tests can be added based on the actual implementation
     // of LibraryManagementSystem class
 }
\ No newline at end of file
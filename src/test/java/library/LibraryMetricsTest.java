@@ -0,0 +1,87 @@
+package library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class LibraryMetricsTest {
+
+    private final PrintStream originalOut = System.out;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testLendingAndSearchesAreMeasured() throws IOException {
+        LibraryManagementSystem library = newLibrary(true);
+        assertTrue(library.borrowBook("Rayuela", 1));
+        assertFalse(library.borrowBook("Rayuela", 2));
+        assertTrue(library.returnBook("Rayuela", 1));
+        library.findBooksByAuthor("Cortázar");
+        library.sortBooksByTitle();
+        library.close();
+
+        LibraryMetrics metrics = library.getMetrics();
+        assertEquals(2, metrics.getTimer("borrow").getHistogram().getCount());
+        assertEquals(1, metrics.getTimer("return").getHistogram().getCount());
+        assertEquals(1, metrics.getCounter("borrowRejected").get());
+        assertEquals(2, metrics.getTimer("search").getHistogram().getCount());
+        assertEquals(1, metrics.getTimer("load").getHistogram().getCount());
+        assertTrue(metrics.getTimer("save").getHistogram().getCount() >= 1);
+        assertTrue(metrics.getTimer("readLockWait").getHistogram().getCount() >= 5);
+
+        String json = metrics.toJson();
+        assertTrue(json.startsWith("{\"enabled\":true,\"timers\":{\"borrow\":{\"count\":2,"));
+        assertTrue(json.contains("\"counters\":{\"borrowRejected\":1,\"returnRejected\":0,"));
+        assertTrue(metrics.toText().contains("borrowRejected"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getTimer("borrow").getHistogram().getCount());
+    }
+
+    @Test
+    public void testDisabledMetricsRecordNothing() throws IOException {
+        LibraryManagementSystem library = newLibrary(false);
+        assertTrue(library.borrowBook("Rayuela", 1));
+        assertFalse(library.returnBook("Rayuela", 2));
+        library.close();
+
+        LibraryMetrics metrics = library.getMetrics();
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.getTimer("borrow").getHistogram().getCount());
+        assertEquals(0, metrics.getTimer("readLockWait").getHistogram().getCount());
+        assertEquals(0, metrics.getCounter("returnRejected").get());
+    }
+
+    private LibraryManagementSystem newLibrary(boolean metrics) throws IOException {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Rayuela|Julio Cortázar|A1|1|1963|B\n".getBytes("UTF-8"));
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setMetricsEnabled(metrics);
+        return new LibraryManagementSystem(settings);
+    }
+}
@@ -79,6 +79,15 @@ public class LibraryTest {
         assertEquals(0, booksBefore2018.size());
     }
     
+    @Test
+    public void testEditedBooksAreSortedByCurrentValues() {
+        book1.setTitle("A First Course in Java");
+        book2.setYear(2017);
+        assertEquals(book1, library.sortBooksByTitle().get(0));
+        assertEquals(book2, library.sortBooksByYearAscending().get(0));
+        assertTrue(library.findBooksPublishedBefore(2018).contains(book2));
+    }
+    
     @Test
     public void testSortBooksByYearAscending() {
         List<Book> sortedBooks = library.sortBooksByYearAscending();
@@ -0,0 +1,141 @@
+package library;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MappedBookStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testViewsReadAndWriteTheMappedRecords() throws IOException {
+        try (MappedBookStore store = MappedBookStore.open(tempDir.resolve("catalog"))) {
+            Book added = store.add(new Book("Rayuela", "Julio Cortázar", "978-84-376-0494-7", 1, 1963));
+            store.add(new EBook("Ficciones", "Jorge Luis Borges", "9780802130303", 2, 1944, 1.25, "EPUB"));
+
+            MappedBookStore.BookView found = store.findByIsbn("9788437604947");
+            assertNotNull(found);
+            assertEquals("Rayuela", found.getTitle());
+            assertEquals("Julio Cortázar", found.getAuthor());
+
+            assertTrue(added.tryAcquireCopy());
+            assertFalse(found.tryAcquireCopy());
+            assertEquals(1, found.releaseCopy());
+
+            found.setTitle("Hopscotch");
+            assertEquals("Hopscotch", added.getTitle());
+
+            MappedBookStore.BookView ebook = store.findByIsbn("9780802130303");
+            assertTrue(ebook.isEBook());
+            assertEquals("EPUB", ebook.getFormat());
+            assertTrue(ebook.toHeapBook() instanceof EBook);
+            assertNull(found.getFormat());
+        }
+    }
+
+    @Test
+    public void testReopenKeepsBooksWithoutParsing() throws IOException {
+        Path base = tempDir.resolve("catalog");
+        try (MappedBookStore store = MappedBookStore.open(base, 4096)) {
+            // Small segments so slots, strings and the ISBN table all grow
+            for (int i = 0; i < 2000; i++) {
+                store.add(new Book("Title " + i, "Author " + (i % 10), "ISBN" + i, i % 3, 1900 + i % 100));
+            }
+            store.findByIsbn("ISBN5").setIsbn("NEW5");
+            assertTrue(store.remove(store.findByIsbn("ISBN7")));
+        }
+
+        try (MappedBookStore store = MappedBookStore.open(base)) {
+            assertEquals(1999, store.size());
+            assertEquals("Title 1999", store.findByIsbn("ISBN1999").getTitle());
+            assertEquals(1, store.findByIsbn("ISBN1999").getCopies());
+            assertNull(store.findByIsbn("ISBN5"));
+            assertEquals(5, store.findByIsbn("NEW5").getSlot());
+            assertNull(store.findByIsbn("ISBN7"));
+            assertNull(store.get(7));
+
+            List<String> titles = new ArrayList<>();
+            store.forEach(b -> titles.add(b.getTitle()));
+            assertEquals(1999, titles.size());
+            assertEquals("Title 8", titles.get(7));
+        }
+    }
+
+    @Test
+    public void testImportBooksFile() throws IOException {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, Arrays.asList(
+                "To Kill a Mockingbird|Harper Lee|9780061120084|10|1960|B",
+                "Digital|Harper Lee|123|1|2020|E|1.5|PDF"));
+
+        try (MappedBookStore store = MappedBookStore.open(tempDir.resolve("catalog"))) {
+            assertEquals(2, store.importBooks(booksFile));
+            assertEquals(10, store.findByIsbn("9780061120084").getCopies());
+            assertEquals(1.5, store.findByIsbn("123").getFileSize());
+            assertEquals(LibraryManagementSystem.formatBookLine(new EBook("Digital", "Harper Lee", "123", 1, 2020,
+                    1.5, "PDF")), LibraryManagementSystem.formatBookLine(store.findByIsbn("123").toHeapBook()));
+        }
+    }
+
+    @Test
+    public void testDuplicateIsbnKeepsTheFirstBook() throws IOException {
+        try (MappedBookStore store = MappedBookStore.open(tempDir.resolve("catalog"))) {
+            store.add(new Book("First", "Author", "978-1", 1, 2000));
+            store.add(new Book("Second", "Author", "9781", 1, 2001));
+            assertEquals(2, store.size());
+            assertEquals("First", store.findByIsbn("9781").getTitle());
+        }
+    }
+
+    @Test
+    public void testFindByTitleFollowsEdits() throws IOException {
+        try (MappedBookStore store = MappedBookStore.open(tempDir.resolve("catalog"), 4096)) {
+            for (int i = 0; i < 500; i++) {
+                store.add(new Book(i % 2 == 0 ? "Even" : "Odd " + i, "Author", "ISBN" + i, 1, 2000));
+            }
+            List<Book> evens = store.findByTitle("EVEN");
+            assertEquals(250, evens.size());
+            assertEquals(store.get(0), evens.get(0));
+
+            store.findByIsbn("ISBN1").setTitle("Even");
+            assertEquals(251, store.findByTitle("even").size());
+            assertTrue(store.findByTitle("Odd 1").isEmpty());
+        }
+    }
+
+    @Test
+    public void testViewsOfTheSameSlotAreEqual() throws IOException {
+        try (MappedBookStore store = MappedBookStore.open(tempDir.resolve("catalog"))) {
+            store.add(new Book("Rayuela", "Julio Cortázar", "1", 1, 1963));
+            store.add(new Book("Ficciones", "Jorge Luis Borges", "2", 1, 1944));
+            assertEquals(store.get(0), store.findByIsbn("1"));
+            assertEquals(store.get(0).hashCode(), store.findByIsbn("1").hashCode());
+            assertNotEquals(store.get(0), store.get(1));
+        }
+    }
+
+    @Test
+    public void testPickAvailableSkipsBooksWithoutCopies() throws IOException {
+        try (MappedBookStore store = MappedBookStore.open(tempDir.resolve("catalog"))) {
+            for (int i = 0; i < 100; i++) {
+                store.add(new Book("Title " + i, "Author", "ISBN" + i, i == 42 ? 1 : 0, 2000));
+            }
+            assertEquals(1, store.countAvailable());
+            assertEquals("ISBN42", store.pickAvailable(new Random(1)).getIsbn());
+
+            assertTrue(store.findByIsbn("ISBN42").tryAcquireCopy());
+            assertEquals(0, store.countAvailable());
+            assertNull(store.pickAvailable(new Random(1)));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimulationRunnerTest {
+
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    public void setUp() {
+        // Thousands of patrons print several lines each
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testScheduledModeRunsManyPatronsOnFewThreads(@TempDir Path tempDir) throws Exception {
+        Path booksFile = tempDir.resolve("books.txt");
+        Files.write(booksFile, "Shared Book|Author|SB12345|5000|2020|B\n".getBytes());
+        LibrarySettings settings = new LibrarySettings();
+        settings.setBooksFile(booksFile.toString());
+        settings.setPatronsFile(tempDir.resolve("patrons.txt").toString());
+        settings.setFlushIntervalMillis(60000);
+        settings.setFlushMaxMutations(Integer.MAX_VALUE);
+        LibraryManagementSystem library = new LibraryManagementSystem(settings);
+
+        int threadsBefore = Thread.activeCount();
+        SimulationRunner runner = new SimulationRunner(LibrarySettings.SimulationMode.SCHEDULED, 2);
+        List<Patron> patrons = new ArrayList<>();
+        for (int i = 1; i <= 5000; i++) {
+            Patron patron = new Patron("Patron " + i, i, "p" + i + "@example.com", library, 1);
+            patrons.add(patron);
+            runner.start(patron);
+        }
+        assertTrue(Thread.activeCount() <= threadsBefore + 2);
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (patrons.stream().anyMatch(p -> !p.isFinished()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+        runner.shutdown();
+        library.close();
+
+        assertTrue(patrons.stream().allMatch(Patron::isFinished));
+        assertEquals(5000, library.findBookByIsbn("SB12345").getCopies());
+        assertTrue(library.getBorrowedBooks().values().stream().allMatch(List::isEmpty));
+    }
+
+    @Test
+    public void testVirtualModeFallsBackWithoutVirtualThreads() {
+        SimulationRunner runner = new SimulationRunner(LibrarySettings.SimulationMode.VIRTUAL, 1);
+        LibrarySettings.SimulationMode expected = SimulationRunner.virtualThreadExecutor() != null
+                ? LibrarySettings.SimulationMode.VIRTUAL
+                : LibrarySettings.SimulationMode.SCHEDULED;
+        assertEquals(expected, runner.getMode());
+        runner.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+package library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+
+public class SortedBookViewsTest {
+
+    private SortedBookViews views;
+    private Book first;
+    private Book second;
+    private Book third;
+    private Book sameYear;
+
+    @BeforeEach
+    public void setUp() {
+        views = new SortedBookViews();
+        first = new Book("Alpha", "Author", "1", 1, 2001);
+        second = new Book("Bravo", "Author", "2", 1, 1999);
+        third = new Book("Charlie", "Author", "3", 1, 2010);
+        sameYear = new Book("Delta", "Author", "4", 1, 2001);
+        views.add(third);
+        views.add(first);
+        views.add(sameYear);
+        views.add(second);
+    }
+
+    @Test
+    public void testOrdersAreMaintained() {
+        assertEquals(Arrays.asList(first, second, third, sameYear), views.byTitle());
+        // Equal years keep insertion order
+        assertEquals(Arrays.asList(second, first, sameYear, third), views.byYearAscending());
+        assertEquals(Arrays.asList(third, first, sameYear, second), views.byYearDescending());
+    }
+
+    @Test
+    public void testPagesAndRanges() {
+        assertEquals(Arrays.asList(second, third), views.byTitle(1, 2));
+        assertTrue(views.byTitle(10, 2).isEmpty());
+        assertEquals(Arrays.asList(third, sameYear), views.byTitleFrom("C", 5));
+        assertEquals(Arrays.asList(second), views.publishedBefore(2001));
+    }
+
+    @Test
+    public void testRemoveAfterEdit() {
+        first.setTitle("Zulu");
+        first.setYear(2020);
+        views.remove(first);
+        views.add(first);
+        List<Book> titles = views.byTitle();
+        assertSame(first, titles.get(titles.size() - 1));
+        assertEquals(Arrays.asList(second, sameYear, third), views.publishedBefore(2011));
+        assertEquals(4, views.size());
+    }
+}
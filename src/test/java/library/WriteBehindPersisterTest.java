@@ -0,0 +1,77 @@
+package library;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBehindPersisterTest {
+
+    private final AtomicInteger bookWrites = new AtomicInteger();
+    private final AtomicInteger patronWrites = new AtomicInteger();
+
+    @Test
+    public void testWriteThroughWritesEveryChange() {
+        WriteBehindPersister persister = new WriteBehindPersister(bookWrites::incrementAndGet,
+                patronWrites::incrementAndGet, 0, 100);
+        assertFalse(persister.isWriteBehind());
+
+        persister.booksChanged();
+        persister.booksChanged();
+        persister.patronsChanged();
+
+        assertEquals(2, bookWrites.get());
+        assertEquals(1, patronWrites.get());
+    }
+
+    @Test
+    public void testChangesAreCoalescedUntilFlush() {
+        WriteBehindPersister persister = new WriteBehindPersister(bookWrites::incrementAndGet,
+                patronWrites::incrementAndGet, TimeUnit.HOURS.toMillis(1), 1000);
+        for (int i = 0; i < 50; i++) {
+            persister.booksChanged();
+        }
+        assertEquals(0, bookWrites.get());
+
+        persister.flush();
+        assertEquals(1, bookWrites.get());
+        assertEquals(0, patronWrites.get());
+
+        // Nothing dirty, nothing written
+        persister.flush();
+        assertEquals(1, bookWrites.get());
+        persister.close();
+    }
+
+    @Test
+    public void testIntervalFlushesInBackground() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        WriteBehindPersister persister = new WriteBehindPersister(written::countDown,
+                patronWrites::incrementAndGet, 50, 1000);
+        persister.booksChanged();
+        assertTrue(written.await(5, TimeUnit.SECONDS), "Interval flush should write the books file");
+        persister.close();
+    }
+
+    @Test
+    public void testMutationLimitTriggersEarlyFlush() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        WriteBehindPersister persister = new WriteBehindPersister(written::countDown,
+                patronWrites::incrementAndGet, TimeUnit.HOURS.toMillis(1), 10);
+        for (int i = 0; i < 10; i++) {
+            persister.booksChanged();
+        }
+        assertTrue(written.await(5, TimeUnit.SECONDS), "Reaching the mutation limit should flush");
+        persister.close();
+    }
+
+    @Test
+    public void testCloseFlushesPendingChanges() {
+        WriteBehindPersister persister = new WriteBehindPersister(bookWrites::incrementAndGet,
+                patronWrites::incrementAndGet, TimeUnit.HOURS.toMillis(1), 1000);
+        persister.patronsChanged();
+        persister.close();
+        assertEquals(1, patronWrites.get());
+    }
+}